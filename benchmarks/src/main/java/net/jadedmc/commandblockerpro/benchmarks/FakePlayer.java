@@ -0,0 +1,74 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.benchmarks;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Creates players for benchmarks without a running server.
+ * Only the methods the rule engine uses are supported, and permission checks are a set lookup,
+ * similar in cost to the server's own permission check.
+ */
+public final class FakePlayer {
+
+    /**
+     * Not used, since every method is static.
+     */
+    private FakePlayer() {
+    }
+
+    /**
+     * Creates a fake player.
+     * @param permissions Permissions the player has.
+     * @return Fake player.
+     */
+    public static Player create(@NotNull final Set<String> permissions) {
+        final UUID uuid = UUID.randomUUID();
+
+        return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[]{Player.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hasPermission":
+                    return args[0] instanceof String && permissions.contains(args[0]);
+                case "getUniqueId":
+                    return uuid;
+                case "getName":
+                    return "BenchmarkPlayer";
+                case "hashCode":
+                    return uuid.hashCode();
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "FakePlayer{" + uuid + "}";
+                default:
+                    throw new UnsupportedOperationException("FakePlayer does not support " + method.getName());
+            }
+        });
+    }
+}
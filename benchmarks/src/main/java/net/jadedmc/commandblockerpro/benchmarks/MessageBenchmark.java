@@ -0,0 +1,111 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.benchmarks;
+
+import net.jadedmc.commandblockerpro.utils.ChatUtils;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures turning block messages from config.yml into chat components.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+    @Param({"PLAIN", "LEGACY", "HEX", "MINIMESSAGE"})
+    private MessageType messageType;
+
+    private String message;
+
+    /**
+     * Picks the message to translate.
+     */
+    @Setup
+    public void setup() {
+        message = messageType.getMessage();
+    }
+
+    /**
+     * Replaces legacy color codes with MiniMessage tags.
+     * @return Message with MiniMessage tags.
+     */
+    @Benchmark
+    public String replaceLegacy() {
+        return ChatUtils.replaceLegacy(message);
+    }
+
+    /**
+     * Translates the message into a chat component.
+     * @return Translated message.
+     */
+    @Benchmark
+    public Object translate() {
+        return ChatUtils.translate(message);
+    }
+
+    /**
+     * The kinds of block messages found in config files.
+     */
+    public enum MessageType {
+        PLAIN("You do not have access to that command."),
+        LEGACY("&c&lError! &7You do not have access to &f/{command}&7."),
+        HEX("&#ff5555Error! &#aaaaaaYou do not have access to &#ffffff/{command}&#aaaaaa."),
+        MINIMESSAGE("<red><bold>Error!</bold> <gray>You do not have access to <white>/{command}</white>. <hover:show_text:'<gold>Ask staff'>Need help?</hover>");
+
+        private final String message;
+
+        /**
+         * Creates the message type.
+         * @param message Example message of the type.
+         */
+        MessageType(@NotNull final String message) {
+            this.message = message;
+        }
+
+        /**
+         * Get the example message.
+         * @return Example message.
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.benchmarks;
+
+import net.jadedmc.commandblockerpro.rules.Rule;
+import net.jadedmc.commandblockerpro.rules.RuleSet;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures checking one command against every rule one at a time, with Rule.shouldBlock and Rule.shouldHide.
+ * This is the per-rule API other plugins use, and does not use the rule set's index or caches.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleBenchmark {
+    @Param({"10", "100", "1000"})
+    private int ruleCount;
+
+    @Param({"5", "50"})
+    private int commandsPerRule;
+
+    @Param({"0", "10", "100"})
+    private int regexCount;
+
+    private List<Rule> rules;
+    private Player player;
+    private String[] commands;
+    private int next;
+
+    /**
+     * Builds the rules, player, and commands.
+     */
+    @Setup
+    public void setup() {
+        final RuleSet ruleSet = SyntheticRules.createRuleSet(ruleCount, commandsPerRule, regexCount, 0, 0);
+        rules = ruleSet.getRules();
+        player = FakePlayer.create(SyntheticRules.createPermissions(ruleCount));
+        commands = SyntheticRules.createCommands(1024, ruleCount, commandsPerRule, regexCount);
+    }
+
+    /**
+     * Checks if any rule blocks the next command.
+     * @param blackhole Consumes the results, so they aren't optimized away.
+     */
+    @Benchmark
+    public void shouldBlock(final Blackhole blackhole) {
+        final String command = nextCommand();
+        for(final Rule rule : rules) {
+            blackhole.consume(rule.shouldBlock(player, command));
+        }
+    }
+
+    /**
+     * Checks if any rule hides the next command.
+     * @param blackhole Consumes the results, so they aren't optimized away.
+     */
+    @Benchmark
+    public void shouldHide(final Blackhole blackhole) {
+        final String command = nextCommand();
+        for(final Rule rule : rules) {
+            blackhole.consume(rule.shouldHide(player, command));
+        }
+    }
+
+    /**
+     * Gets the next command to check, cycling through every generated command.
+     * @return Command to check.
+     */
+    private String nextCommand() {
+        next = (next + 1) & (commands.length - 1);
+        return commands[next];
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.benchmarks;
+
+import net.jadedmc.commandblockerpro.rules.BypassProfile;
+import net.jadedmc.commandblockerpro.rules.NormalizedCommand;
+import net.jadedmc.commandblockerpro.rules.RuleSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the work PlayerCommandPreprocessListener does for each command:
+ * finding every rule that catches the command, then removing the ones the player can bypass.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleSetBenchmark {
+    @Param({"10", "100", "1000"})
+    private int ruleCount;
+
+    @Param({"5", "50"})
+    private int commandsPerRule;
+
+    @Param({"0", "10", "100"})
+    private int regexCount;
+
+    @Param({"0", "1024"})
+    private int matchCacheSize;
+
+    private RuleSet ruleSet;
+    private BypassProfile profile;
+    private String[] commands;
+    private int next;
+
+    /**
+     * Builds the rules, player profile, and commands.
+     */
+    @Setup
+    public void setup() {
+        ruleSet = SyntheticRules.createRuleSet(ruleCount, commandsPerRule, regexCount, matchCacheSize, 0);
+        profile = new BypassProfile(FakePlayer.create(SyntheticRules.createPermissions(ruleCount)), ruleSet);
+        commands = SyntheticRules.createCommands(1024, ruleCount, commandsPerRule, regexCount);
+    }
+
+    /**
+     * Gets the rules that block the next command for the player.
+     * @return Ids of the blocking rules.
+     */
+    @Benchmark
+    public BitSet blockingRules() {
+        next = (next + 1) & (commands.length - 1);
+        return profile.filter(ruleSet.getBlockingRules(NormalizedCommand.parse(commands[next])));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.benchmarks;
+
+import net.jadedmc.commandblockerpro.GlobalSettings;
+import net.jadedmc.commandblockerpro.rules.Rule;
+import net.jadedmc.commandblockerpro.rules.RuleSet;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Builds rule sets, commands, and tab lists for benchmarks.
+ * Everything is generated from a fixed seed, so every run measures the same inputs.
+ * Rule i blocks the commands "cmd{i}_0" to "cmd{i}_{n}", and every fourth rule is a hide rule instead.
+ * Regex filters are spread across the rules, and each one catches commands starting with "rx{k}".
+ */
+public final class SyntheticRules {
+    private static final long SEED = 20588;
+
+    /**
+     * Not used, since every method is static.
+     */
+    private SyntheticRules() {
+    }
+
+    /**
+     * Creates a rule set.
+     * @param ruleCount Number of rules.
+     * @param commandsPerRule Number of commands in each rule's commands list.
+     * @param regexCount Total number of regex filters, spread across the rules.
+     * @param matchCacheSize Size of the match cache, or 0 to check every command against the rules.
+     * @param tabListCacheSize Size of the tab list cache, or 0 to filter every tab list from scratch.
+     * @return Rule set.
+     */
+    public static RuleSet createRuleSet(final int ruleCount, final int commandsPerRule, final int regexCount, final int matchCacheSize, final int tabListCacheSize) {
+        final MemoryConfiguration config = new MemoryConfiguration();
+        config.set("matchCacheSize", matchCacheSize);
+        config.set("tabListCacheSize", tabListCacheSize);
+        final GlobalSettings settings = new GlobalSettings(config);
+
+        final List<Rule> rules = new ArrayList<>();
+        for(int ruleId = 0; ruleId < ruleCount; ruleId++) {
+            final ConfigurationSection section = config.createSection("rules.rule" + ruleId);
+            section.set("type", ruleId % 4 == 3 ? "HIDE" : "BLACKLIST");
+            section.set("bypassPermission", "benchmark.bypass." + ruleId);
+
+            final List<String> commands = new ArrayList<>();
+            for(int command = 0; command < commandsPerRule; command++) {
+                commands.add("cmd" + ruleId + "_" + command);
+            }
+            section.set("commands", commands);
+
+            final List<String> regex = new ArrayList<>();
+            for(int filter = ruleId; filter < regexCount; filter += ruleCount) {
+                regex.add("^rx" + filter + "[a-z]*( .*)?$");
+            }
+            section.set("regex", regex);
+
+            rules.add(new Rule(section, ruleId, settings));
+        }
+
+        return new RuleSet(rules, settings);
+    }
+
+    /**
+     * Gets the bypass permissions of a player who can bypass every fourth rule.
+     * @param ruleCount Number of rules.
+     * @return Permissions of the player.
+     */
+    public static Set<String> createPermissions(final int ruleCount) {
+        final Set<String> permissions = new HashSet<>();
+        for(int ruleId = 0; ruleId < ruleCount; ruleId += 4) {
+            permissions.add("benchmark.bypass." + ruleId);
+        }
+
+        return permissions;
+    }
+
+    /**
+     * Creates commands as players would type them, with a leading slash and arguments.
+     * About half are caught by a rule, and the rest are commands no rule mentions.
+     * @param count Number of commands.
+     * @param ruleCount Number of rules.
+     * @param commandsPerRule Number of commands in each rule's commands list.
+     * @param regexCount Total number of regex filters.
+     * @return Commands.
+     */
+    public static String[] createCommands(final int count, final int ruleCount, final int commandsPerRule, final int regexCount) {
+        final Random random = new Random(SEED);
+        final String[] commands = new String[count];
+        for(int i = 0; i < count; i++) {
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    commands[i] = "/cmd" + random.nextInt(ruleCount) + "_" + random.nextInt(commandsPerRule) + " some arguments";
+                    break;
+                case 2:
+                    commands[i] = "/Plugin:CMD" + random.nextInt(ruleCount) + "_" + random.nextInt(commandsPerRule);
+                    break;
+                case 3:
+                    commands[i] = regexCount > 0 ? "/rx" + random.nextInt(regexCount) + "extra argument" : "/unknown" + i;
+                    break;
+                default:
+                    commands[i] = "/unknown" + random.nextInt(count) + " " + random.nextInt(100);
+                    break;
+            }
+        }
+
+        return commands;
+    }
+
+    /**
+     * Creates the command names a server would send to a player, without slashes.
+     * About a third are caught by a rule.
+     * @param size Number of commands.
+     * @param ruleCount Number of rules.
+     * @param commandsPerRule Number of commands in each rule's commands list.
+     * @return Tab list.
+     */
+    public static List<String> createTabList(final int size, final int ruleCount, final int commandsPerRule) {
+        final Random random = new Random(SEED);
+        final Set<String> commands = new HashSet<>();
+        while(commands.size() < size) {
+            if(random.nextInt(3) == 0) {
+                commands.add("cmd" + random.nextInt(ruleCount) + "_" + random.nextInt(commandsPerRule));
+            }
+            else {
+                commands.add("plugin" + random.nextInt(size * 4));
+            }
+        }
+
+        final String[] sorted = commands.toArray(new String[0]);
+        Arrays.sort(sorted);
+        return Arrays.asList(sorted);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.benchmarks;
+
+import net.jadedmc.commandblockerpro.rules.BypassProfile;
+import net.jadedmc.commandblockerpro.rules.Rule;
+import net.jadedmc.commandblockerpro.rules.RuleSet;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures filtering the command list sent to a player, as PlayerCommandSendListener does.
+ * Also measures checking each command against each rule one at a time, for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TabListBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    private int tabListSize;
+
+    @Param({"10", "100", "1000"})
+    private int ruleCount;
+
+    @Param({"10"})
+    private int commandsPerRule;
+
+    @Param({"0", "64"})
+    private int tabListCacheSize;
+
+    private RuleSet ruleSet;
+    private Player player;
+    private BypassProfile profile;
+    private List<String> tabList;
+
+    /**
+     * Builds the rules, player, and tab list.
+     */
+    @Setup
+    public void setup() {
+        ruleSet = SyntheticRules.createRuleSet(ruleCount, commandsPerRule, 0, 1024, tabListCacheSize);
+        player = FakePlayer.create(SyntheticRules.createPermissions(ruleCount));
+        profile = new BypassProfile(player, ruleSet);
+        tabList = SyntheticRules.createTabList(tabListSize, ruleCount, commandsPerRule);
+    }
+
+    /**
+     * Filters the tab list the same way PlayerCommandSendListener does.
+     * @return Filtered tab list.
+     */
+    @Benchmark
+    public Collection<String> filterTabList() {
+        // The server sends a fresh, modifiable collection every time.
+        final Collection<String> commands = new ArrayList<>(tabList);
+        commands.removeAll(ruleSet.getHiddenCommands(profile, commands).getCommands());
+        return commands;
+    }
+
+    /**
+     * Filters the tab list by checking each command against each rule with Rule.shouldHide.
+     * @return Filtered tab list.
+     */
+    @Benchmark
+    public Collection<String> shouldHideEachCommand() {
+        final Collection<String> commands = new ArrayList<>(tabList);
+        final Iterator<String> iterator = commands.iterator();
+        while(iterator.hasNext()) {
+            final String command = iterator.next();
+            for(final Rule rule : ruleSet.getRules()) {
+                if(rule.shouldHide(player, command)) {
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+
+        return commands;
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro;
+
+import net.jadedmc.commandblockerpro.rules.Rule;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes every blocked command to files in the audit folder, for moderation. Turned on with the "auditLog" option in config.yml.
+ * Blocked commands are added to a bounded buffer, which a background thread writes to disk in batches,
+ * so the server never waits on the disk. If the buffer fills up, new commands are dropped and counted instead.
+ * A new file is started once the current one gets too large or too old, depending on config.yml.
+ * <p>
+ * Each line of a file is tab-separated: the time (ISO 8601), the player's UUID and name, the rule's id and name, and the command.
+ */
+public class AuditLog {
+    private static final int BATCH_SIZE = 1024;
+    private static final long POLL_INTERVAL = 1000;
+
+    private final Plugin plugin;
+    private final LongAdder dropped = new LongAdder();
+    private volatile BlockingQueue<Entry> queue = null;
+    private volatile boolean running = false;
+    private Thread writerThread = null;
+    private GlobalSettings settings = null;
+
+    /**
+     * Creates the audit log, without starting it.
+     * @param plugin Instance of the plugin.
+     */
+    public AuditLog(@NotNull final Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts writing blocked commands, or restarts if the audit log settings have changed.
+     * @param newSettings Settings containing the buffer size, rotation, and compression options.
+     */
+    public synchronized void start(@NotNull final GlobalSettings newSettings) {
+        if(running) {
+            if(hasSameOptions(settings, newSettings)) {
+                return;
+            }
+
+            stop();
+        }
+
+        final File folder = new File(plugin.getDataFolder(), "audit");
+        if(!folder.isDirectory() && !folder.mkdirs()) {
+            plugin.getLogger().warning("Could not create " + folder.getPath() + ". Blocked commands will not be logged.");
+            return;
+        }
+
+        settings = newSettings;
+        queue = new ArrayBlockingQueue<>(newSettings.getAuditBufferSize());
+        running = true;
+
+        final BlockingQueue<Entry> entries = queue;
+        writerThread = new Thread(() -> write(folder, entries, newSettings), "CommandBlockerPro Audit Log");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stops writing blocked commands, waiting for every buffered command to be written.
+     */
+    public synchronized void stop() {
+        if(!running) {
+            return;
+        }
+
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        writerThread = null;
+        queue = null;
+    }
+
+    /**
+     * Get if blocked commands are being logged.
+     * @return Whether the audit log is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Get the number of blocked commands that were not logged because the buffer was full.
+     * @return Number of dropped commands.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Logs a blocked command. Never waits, even if the buffer is full.
+     * @param player Player who used the command.
+     * @param command Command the player used, including arguments.
+     * @param rule Rule that blocked the command.
+     */
+    public void record(@NotNull final Player player, @NotNull final String command, @NotNull final Rule rule) {
+        final BlockingQueue<Entry> entries = queue;
+        if(!running || entries == null) {
+            return;
+        }
+
+        if(!entries.offer(new Entry(player.getUniqueId(), player.getName(), command, rule.getId(), rule.getName()))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Writes buffered commands in batches until the audit log is stopped and the buffer is empty.
+     * Runs on the writer thread.
+     * @param folder Folder to write the files to.
+     * @param entries Buffer to write commands from.
+     * @param options Settings containing the rotation and compression options.
+     */
+    private void write(@NotNull final File folder, @NotNull final BlockingQueue<Entry> entries, @NotNull final GlobalSettings options) {
+        final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+        final List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+        AuditFile file = null;
+
+        try {
+            while(running || !entries.isEmpty()) {
+                // Wait for the next blocked command, checking every so often if the audit log was stopped.
+                final Entry first;
+                try {
+                    first = entries.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException exception) {
+                    continue;
+                }
+
+                if(first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                entries.drainTo(batch, BATCH_SIZE - 1);
+
+                // Start a new file if the current one is too large or too old.
+                if(file == null || file.isFull(options)) {
+                    if(file != null) {
+                        file.writer.close();
+                    }
+                    file = new AuditFile(folder, options.isAuditCompress());
+                }
+
+                for(final Entry entry : batch) {
+                    file.writer.write(timeFormat.format(new Date(entry.time)));
+                    file.writer.write('\t');
+                    file.writer.write(entry.uuid.toString());
+                    file.writer.write('\t');
+                    file.writer.write(entry.playerName);
+                    file.writer.write('\t');
+                    file.writer.write(Integer.toString(entry.ruleId));
+                    file.writer.write('\t');
+                    file.writer.write(clean(entry.ruleName));
+                    file.writer.write('\t');
+                    file.writer.write(clean(entry.command));
+                    file.writer.write('\n');
+                }
+
+                // Each batch is written to disk at once, which also keeps the file size up to date for rotation.
+                file.writer.flush();
+                batch.clear();
+            }
+        }
+        catch (IOException exception) {
+            plugin.getLogger().warning("Could not write to the audit log. Blocked commands will not be logged until the plugin is reloaded: " + exception.getMessage());
+            running = false;
+        }
+        finally {
+            if(file != null) {
+                try {
+                    file.writer.close();
+                }
+                catch (IOException exception) {
+                    exception.printStackTrace();
+                }
+            }
+
+            // Anything left can't be written anymore.
+            dropped.add(entries.size());
+            entries.clear();
+        }
+    }
+
+    /**
+     * Replaces tabs and line breaks, so every command stays on one line of the audit log.
+     * @param text Text to clean.
+     * @return Text without tabs or line breaks.
+     */
+    private static String clean(@NotNull final String text) {
+        if(text.indexOf('\t') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+
+        return text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * Checks if two sets of settings have the same audit log options.
+     * @param first First settings, or null.
+     * @param second Second settings.
+     * @return Whether the audit log options are the same.
+     */
+    private static boolean hasSameOptions(final GlobalSettings first, @NotNull final GlobalSettings second) {
+        return first != null
+                && first.getAuditBufferSize() == second.getAuditBufferSize()
+                && first.getAuditMaxFileSize() == second.getAuditMaxFileSize()
+                && first.getAuditRotateInterval() == second.getAuditRotateInterval()
+                && first.isAuditCompress() == second.isAuditCompress();
+    }
+
+    /**
+     * An audit log file being written to.
+     */
+    private static final class AuditFile {
+        private final Writer writer;
+        private final CountingOutputStream output;
+        private final long opened = System.currentTimeMillis();
+
+        /**
+         * Creates a new audit log file, named after the current time.
+         * @param folder Folder to create the file in.
+         * @param compress Whether to compress the file with gzip.
+         * @throws IOException If the file could not be created.
+         */
+        private AuditFile(@NotNull final File folder, final boolean compress) throws IOException {
+            final String name = "audit-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            final String extension = compress ? ".log.gz" : ".log";
+
+            // Files started within the same second get a number added.
+            File file = new File(folder, name + extension);
+            for(int number = 1; file.exists(); number++) {
+                file = new File(folder, name + "-" + number + extension);
+            }
+
+            output = new CountingOutputStream(new FileOutputStream(file));
+            final OutputStream stream = compress ? new GZIPOutputStream(output, 65536, true) : output;
+            writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 65536);
+        }
+
+        /**
+         * Checks if a new file should be started.
+         * @param options Settings containing the rotation options.
+         * @return Whether the file is too large or too old.
+         */
+        private boolean isFull(@NotNull final GlobalSettings options) {
+            return (options.getAuditMaxFileSize() > 0 && output.count >= options.getAuditMaxFileSize())
+                    || (options.getAuditRotateInterval() > 0 && System.currentTimeMillis() - opened >= options.getAuditRotateInterval());
+        }
+    }
+
+    /**
+     * Counts the bytes written to a file, so it can be rotated by size without asking the file system.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count = 0;
+
+        /**
+         * Creates the stream.
+         * @param output Stream to write to.
+         */
+        private CountingOutputStream(@NotNull final OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        public void write(final int data) throws IOException {
+            out.write(data);
+            count++;
+        }
+
+        @Override
+        public void write(final byte @NotNull [] data, final int offset, final int length) throws IOException {
+            out.write(data, offset, length);
+            count += length;
+        }
+    }
+
+    /**
+     * A blocked command waiting to be written.
+     */
+    private static final class Entry {
+        private final long time = System.currentTimeMillis();
+        private final UUID uuid;
+        private final String playerName;
+        private final String command;
+        private final int ruleId;
+        private final String ruleName;
+
+        /**
+         * Creates the entry.
+         * @param uuid UUID of the player.
+         * @param playerName Name of the player.
+         * @param command Command the player used.
+         * @param ruleId Id of the rule that blocked the command.
+         * @param ruleName Name of the rule that blocked the command.
+         */
+        private Entry(@NotNull final UUID uuid, @NotNull final String playerName, @NotNull final String command, final int ruleId, @NotNull final String ruleName) {
+            this.uuid = uuid;
+            this.playerName = playerName;
+            this.command = command;
+            this.ruleId = ruleId;
+            this.ruleName = ruleName;
+        }
+    }
+}
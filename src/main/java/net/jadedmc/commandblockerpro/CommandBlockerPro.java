@@ -26,6 +26,7 @@ package net.jadedmc.commandblockerpro;
 
 import net.jadedmc.commandblockerpro.rules.Rule;
 import org.bukkit.Sound;
+import org.bukkit.entity.Player;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
@@ -37,12 +38,20 @@ import java.util.Collection;
 public class CommandBlockerPro {
     private static CommandBlockerProPlugin plugin;
 
+    /**
+     * Get the currently loaded global settings, which are every setting in config.yml that isn't part of a rule.
+     * @return Global Settings.
+     */
+    public static GlobalSettings getGlobalSettings() {
+        return plugin.getRuleManager().getRuleSet().getSettings();
+    }
+
     /**
      * Get if a global block message has been configured.
      * @return true is yes, false if not.
      */
     public static boolean hasGlobalBlockMessage() {
-        return plugin.getConfigManager().getConfig().isSet("blockMessage");
+        return getGlobalSettings().hasBlockMessage();
     }
 
     /**
@@ -50,7 +59,7 @@ public class CommandBlockerPro {
      * @return true if yes, false it not.
      */
     public static boolean hasGlobalBlockSound() {
-        return plugin.getConfigManager().getConfig().isSet("blockSound.sound");
+        return getGlobalSettings().hasBlockSound();
     }
 
     /**
@@ -59,11 +68,7 @@ public class CommandBlockerPro {
      */
     @Nullable
     public static String getGlobalBlockMessage() {
-        if(plugin.getConfigManager().getConfig().isSet("blockMessage")) {
-            return plugin.getConfigManager().getConfig().getString("blockMessage");
-        }
-
-        return null;
+        return getGlobalSettings().getBlockMessage();
     }
 
     /**
@@ -72,11 +77,7 @@ public class CommandBlockerPro {
      */
     @Nullable
     public static Sound getGlobalBlockSound() {
-        if(plugin.getConfigManager().getConfig().isSet("blockSound.sound")) {
-            return Sound.valueOf(plugin.getConfigManager().getConfig().getString("blockSound.sound"));
-        }
-
-        return null;
+        return getGlobalSettings().getBlockSound();
     }
 
     /**
@@ -84,11 +85,7 @@ public class CommandBlockerPro {
      * @return the configured pitch of the block sound as a float, or 1.0f if not set.
      */
     public static float getGlobalBlockSoundPitch() {
-        if (plugin.getConfigManager().getConfig().isSet("blockSound.pitch")) {
-            return (float) plugin.getConfigManager().getConfig().getDouble("blockSound.pitch");
-        }
-
-        return 1.0f;
+        return getGlobalSettings().getBlockSoundPitch();
     }
 
     /**
@@ -96,11 +93,7 @@ public class CommandBlockerPro {
      * @return the configured volume of the block sound as a float, or 1.0f if not set.
      */
     public static float getGlobalBlockSoundVolume() {
-        if (plugin.getConfigManager().getConfig().isSet("blockSound.volume")) {
-            return  (float) plugin.getConfigManager().getConfig().getDouble("blockSound.volume");
-        }
-
-        return 1.0f;
+        return getGlobalSettings().getBlockSoundVolume();
     }
 
     /**
@@ -111,6 +104,16 @@ public class CommandBlockerPro {
         return plugin.getRuleManager().getRules();
     }
 
+    /**
+     * Recomputes which rules a player can bypass from their current permissions.
+     * This happens automatically when a player joins, changes worlds, or has their commands updated,
+     * but plugins that change permissions without updating commands should call this afterward.
+     * @param player Player to update.
+     */
+    public static void refreshPlayer(final Player player) {
+        plugin.getProfileManager().refresh(player);
+    }
+
     /**
      * Passes an instance of the plugin to this static class.
      * @param pl Instance of the plugin.
@@ -25,19 +25,34 @@
 package net.jadedmc.commandblockerpro;
 
 import net.jadedmc.commandblockerpro.commands.CommandBlockerCMD;
+import net.jadedmc.commandblockerpro.listeners.PlayerChangedWorldListener;
 import net.jadedmc.commandblockerpro.listeners.PlayerCommandPreprocessListener;
 import net.jadedmc.commandblockerpro.listeners.PlayerCommandSendListener;
+import net.jadedmc.commandblockerpro.listeners.PlayerJoinListener;
+import net.jadedmc.commandblockerpro.listeners.PlayerQuitListener;
 import net.jadedmc.commandblockerpro.listeners.ReloadListener;
 import net.jadedmc.commandblockerpro.rules.RuleManager;
+import net.jadedmc.commandblockerpro.rules.RuleSet;
 import net.jadedmc.commandblockerpro.utils.ChatUtils;
 import net.jadedmc.commandblockerpro.utils.CommandUtils;
+import net.jadedmc.commandblockerpro.utils.SchedulerUtils;
 import org.bstats.bukkit.Metrics;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
 public final class CommandBlockerProPlugin extends JavaPlugin {
     private HookManager hookManager;
     private ConfigManager configManager;
     private RuleManager ruleManager;
+    private ProfileManager profileManager;
+    private PlaceholderManager placeholderManager;
+    private FeedbackLimiter feedbackLimiter;
+    private FloodDetector floodDetector;
+    private StatsManager statsManager;
+    private TrafficRecorder trafficRecorder;
+    private AuditLog auditLog;
 
     /**
      * Runs when the plugin is enabled.
@@ -47,11 +62,25 @@ public final class CommandBlockerProPlugin extends JavaPlugin {
         // Setup utilities
         new CommandUtils(this);
         ChatUtils.initialize(this);
+        SchedulerUtils.initialize(this);
 
         // Load plugin settings.
         hookManager = new HookManager(this);
         configManager = new ConfigManager(this);
         ruleManager = new RuleManager(this);
+        profileManager = new ProfileManager(this);
+        placeholderManager = new PlaceholderManager(this);
+        feedbackLimiter = new FeedbackLimiter();
+        floodDetector = new FloodDetector(this);
+        statsManager = new StatsManager();
+        trafficRecorder = new TrafficRecorder(this);
+        auditLog = new AuditLog(this);
+        placeholderManager.setCacheTime(ruleManager.getRuleSet().getSettings().getPlaceholderCacheTime());
+
+        // Starts watching config.yml for changes if enabled.
+        updateConfigWatcher();
+        updateTrafficRecorder();
+        updateAuditLog();
 
         // Register listeners
         registerListeners();
@@ -73,6 +102,21 @@ public final class CommandBlockerProPlugin extends JavaPlugin {
     public void onDisable() {
         // Disables ChatUtils. Required to prevent memory leaks with the Adventure Library.
         ChatUtils.disable();
+
+        // Stops watching config.yml for changes.
+        configManager.stopWatching();
+
+        // Writes any commands still waiting to be recorded.
+        trafficRecorder.stop();
+
+        // Writes any blocked commands still waiting to be logged.
+        auditLog.stop();
+
+        // Stops the background thread used for reloading.
+        SchedulerUtils.disable();
+
+        // Removes the commands registered for MESSAGE rules.
+        CommandUtils.unregisterDummyCommands();
     }
 
     /**
@@ -83,6 +127,22 @@ public final class CommandBlockerProPlugin extends JavaPlugin {
         return configManager;
     }
 
+    /**
+     * Get the feedback limiter, which limits how often players are sent block messages and sounds.
+     * @return Feedback Limiter.
+     */
+    public FeedbackLimiter getFeedbackLimiter() {
+        return feedbackLimiter;
+    }
+
+    /**
+     * Get the flood detector, which locks out or kicks players flooding the server with commands.
+     * @return Flood Detector.
+     */
+    public FloodDetector getFloodDetector() {
+        return floodDetector;
+    }
+
     /**
      * Get the Hook Manager, which returns an object that keeps track of hooks into other plugins.
      * @return HookManager.
@@ -91,6 +151,22 @@ public final class CommandBlockerProPlugin extends JavaPlugin {
         return hookManager;
     }
 
+    /**
+     * Get the placeholder manager of the plugin, which sets and remembers PlaceholderAPI placeholders.
+     * @return Placeholder Manager.
+     */
+    public PlaceholderManager getPlaceholderManager() {
+        return placeholderManager;
+    }
+
+    /**
+     * Get the profile manager of the plugin, which tracks which rules each player can bypass.
+     * @return Profile Manager.
+     */
+    public ProfileManager getProfileManager() {
+        return profileManager;
+    }
+
     /**
      * Get the rule manager of the plugin.
      * @return Rule Manager.
@@ -99,11 +175,38 @@ public final class CommandBlockerProPlugin extends JavaPlugin {
         return ruleManager;
     }
 
+    /**
+     * Get the stats manager of the plugin, which records rule hit counts and timings.
+     * @return Stats Manager.
+     */
+    public StatsManager getStatsManager() {
+        return statsManager;
+    }
+
+    /**
+     * Get the traffic recorder of the plugin, which records commands for the TrafficReplay tool.
+     * @return Traffic Recorder.
+     */
+    public TrafficRecorder getTrafficRecorder() {
+        return trafficRecorder;
+    }
+
+    /**
+     * Get the audit log of the plugin, which logs blocked commands to files.
+     * @return Audit Log.
+     */
+    public AuditLog getAuditLog() {
+        return auditLog;
+    }
+
     /**
      * Registers all plugin event listeners with the server.
      */
     private void registerListeners() {
+        getServer().getPluginManager().registerEvents(new PlayerChangedWorldListener(this), this);
         getServer().getPluginManager().registerEvents(new PlayerCommandPreprocessListener(this), this);
+        getServer().getPluginManager().registerEvents(new PlayerJoinListener(this), this);
+        getServer().getPluginManager().registerEvents(new PlayerQuitListener(this), this);
 
         // This event only exists on 1.13+.
         try {
@@ -118,11 +221,92 @@ public final class CommandBlockerProPlugin extends JavaPlugin {
         if(this.hookManager.useBetterReload()) getServer().getPluginManager().registerEvents(new ReloadListener(this), this);
     }
 
+    /**
+     * Starts or stops watching config.yml for changes, depending on the "autoReload" setting.
+     * When a change is found, the plugin reloads itself.
+     */
+    private void updateConfigWatcher() {
+        final GlobalSettings settings = ruleManager.getRuleSet().getSettings();
+        if(!settings.isAutoReload()) {
+            configManager.stopWatching();
+            return;
+        }
+
+        // Does nothing if already watching with the same delay.
+        configManager.startWatching(settings.getAutoReloadDelay(), () -> {
+            getLogger().info("config.yml changed. Reloading...");
+            reload();
+        });
+    }
+
+    /**
+     * Starts or stops recording commands, depending on the "recorder" setting.
+     */
+    private void updateTrafficRecorder() {
+        if(ruleManager.getRuleSet().getSettings().isRecorder()) {
+            trafficRecorder.start();
+        }
+        else {
+            trafficRecorder.stop();
+        }
+    }
+
+    /**
+     * Starts, restarts, or stops logging blocked commands, depending on the "auditLog" settings.
+     */
+    private void updateAuditLog() {
+        final GlobalSettings settings = ruleManager.getRuleSet().getSettings();
+        if(settings.isAuditLog()) {
+            auditLog.start(settings);
+        }
+        else {
+            auditLog.stop();
+        }
+    }
+
     /**
      * Reloads the plugin configuration and updates important values.
+     * The config is read and the rules are compiled on a background thread, so large rule lists don't lag the server.
+     * Only the steps that change the server, such as registering commands, run on the server thread.
+     * If anything goes wrong, the old config and rules stay in use.
+     * The future always completes on the server thread, whether the reload worked or not, so callbacks can safely use the server.
+     * @return A future completed once the new rules are in use, or completed exceptionally if the reload failed.
      */
-    public void reload() {
-        this.configManager.reloadConfig();
-        this.ruleManager.reloadRules();
+    public CompletableFuture<Void> reload() {
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        SchedulerUtils.runAsync(() -> {
+            final ConfigManager.LoadedConfig config;
+            final RuleSet ruleSet;
+            try {
+                config = this.configManager.loadConfig();
+                ruleSet = this.ruleManager.loadRules(config.getConfig());
+            }
+            catch (Exception exception) {
+                this.getLogger().log(Level.SEVERE, "Could not reload the configuration. The previous rules are still in use.", exception);
+                SchedulerUtils.runSync(() -> result.completeExceptionally(exception));
+                return;
+            }
+
+            SchedulerUtils.runSync(() -> {
+                try {
+                    this.ruleManager.setRuleSet(ruleSet);
+                    this.configManager.setConfig(config);
+                    this.profileManager.refreshAll();
+                    this.placeholderManager.setCacheTime(ruleSet.getSettings().getPlaceholderCacheTime());
+                    updateConfigWatcher();
+                    updateTrafficRecorder();
+                    updateAuditLog();
+                    this.getLogger().info("Loaded " + ruleSet.getRules().size() + " rules.");
+                    result.complete(null);
+                }
+                catch (RuntimeException exception) {
+                    this.getLogger().log(Level.SEVERE, "Could not apply the reloaded rules.", exception);
+                    result.completeExceptionally(exception);
+                }
+            });
+        });
+
+        return result;
     }
 }
\ No newline at end of file
@@ -24,6 +24,7 @@
  */
 package net.jadedmc.commandblockerpro;
 
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.Plugin;
@@ -31,24 +32,49 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
 
 /**
  * Manages the configurable settings in the plugin.
  */
 public class ConfigManager {
-    private FileConfiguration config;
+    private final Plugin plugin;
+    private volatile FileConfiguration config;
     private final File configFile;
+    private volatile long checksum;
+    private WatchService watchService = null;
+    private Thread watchThread = null;
+    private long watchDelay = 0;
 
     /**
      * Loads or Creates configuration files.
      * @param plugin Instance of the plugin.
      */
     public ConfigManager(@NotNull final Plugin plugin) {
+        this.plugin = plugin;
         configFile = new File(plugin.getDataFolder(), "config.yml");
         if(!configFile.exists()) {
             plugin.saveResource("config.yml", false);
         }
-        config = YamlConfiguration.loadConfiguration(configFile);
+
+        try {
+            setConfig(loadConfig());
+        }
+        catch (IOException | InvalidConfigurationException exception) {
+            plugin.getLogger().log(Level.SEVERE, "Could not load config.yml. Using the default settings until it is fixed.", exception);
+            config = new YamlConfiguration();
+        }
     }
 
     /**
@@ -59,6 +85,30 @@ public class ConfigManager {
         return config;
     }
 
+    /**
+     * Reads config.yml from the disk without replacing the config currently in use.
+     * Safe to call from any thread.
+     * @return The loaded config.yml, along with the checksum of its contents.
+     * @throws IOException If the file could not be read.
+     * @throws InvalidConfigurationException If the file is not valid YAML.
+     */
+    public LoadedConfig loadConfig() throws IOException, InvalidConfigurationException {
+        final byte[] contents = Files.readAllBytes(configFile.toPath());
+        final YamlConfiguration loadedConfig = new YamlConfiguration();
+        loadedConfig.loadFromString(new String(contents, StandardCharsets.UTF_8));
+        return new LoadedConfig(loadedConfig, checksum(contents));
+    }
+
+    /**
+     * Replaces the config currently in use, remembering its contents so the watcher ignores writes that don't change them.
+     * Only called once everything loaded from the file is in use, so a file with errors is tried again even if it is saved without changes.
+     * @param loadedConfig New config.yml, loaded with {@link #loadConfig()}.
+     */
+    public void setConfig(@NotNull final LoadedConfig loadedConfig) {
+        this.config = loadedConfig.getConfig();
+        this.checksum = loadedConfig.getChecksum();
+    }
+
     /**
      * Update the configuration files.
      */
@@ -77,4 +127,167 @@ public class ConfigManager {
             exception.printStackTrace();
         }
     }
+
+    /**
+     * Starts watching config.yml for changes on a background thread.
+     * Editors and deploy tools often write a file several times in a row, so changes are only acted on
+     * once the file has been left alone for a moment, and only if its contents are different from what was last loaded.
+     * Does nothing if already watching with the same delay, and restarts the watcher if the delay changed.
+     * @param delay Milliseconds the file must be left alone before it is reloaded.
+     * @param onChange Runs on the watcher thread when the contents of config.yml change.
+     */
+    public synchronized void startWatching(final long delay, @NotNull final Runnable onChange) {
+        if(watchService != null) {
+            if(delay == watchDelay) {
+                return;
+            }
+
+            stopWatching();
+        }
+
+        watchDelay = delay;
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            plugin.getDataFolder().toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        catch (IOException exception) {
+            plugin.getLogger().warning("Could not watch config.yml for changes: " + exception.getMessage());
+            stopWatching();
+            return;
+        }
+
+        final WatchService service = watchService;
+        watchThread = new Thread(() -> watch(service, delay, onChange), "CommandBlockerPro Config Watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Stops watching config.yml for changes.
+     */
+    public synchronized void stopWatching() {
+        if(watchService != null) {
+            try {
+                watchService.close();
+            }
+            catch (IOException exception) {
+                exception.printStackTrace();
+            }
+            watchService = null;
+        }
+
+        if(watchThread != null) {
+            watchThread.interrupt();
+            watchThread = null;
+        }
+    }
+
+    /**
+     * Waits for changes to config.yml until the watch service is closed.
+     * @param service Watch service registered to the data folder.
+     * @param delay Milliseconds the file must be left alone before it is reloaded.
+     * @param onChange Runs when the contents of config.yml change.
+     */
+    private void watch(@NotNull final WatchService service, final long delay, @NotNull final Runnable onChange) {
+        try {
+            while(!Thread.currentThread().isInterrupted()) {
+                // Wait for config.yml to be written to.
+                if(!pollConfigEvents(service.take())) {
+                    continue;
+                }
+
+                // Keep waiting until the file stops being written to.
+                WatchKey key;
+                while((key = service.poll(delay, TimeUnit.MILLISECONDS)) != null) {
+                    pollConfigEvents(key);
+                }
+
+                // Ignore writes that didn't change anything, such as the file being touched or saved without edits.
+                final long newChecksum;
+                try {
+                    newChecksum = checksum(Files.readAllBytes(configFile.toPath()));
+                }
+                catch (IOException exception) {
+                    // The file may have been deleted or be mid-replace. The next write will be picked up.
+                    continue;
+                }
+
+                if(newChecksum != checksum) {
+                    onChange.run();
+                }
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException exception) {
+            // Watching was stopped.
+        }
+    }
+
+    /**
+     * Reads the events of a watch key, then resets it so it receives more events.
+     * @param key Watch key of the data folder.
+     * @return Whether any of the events were for config.yml.
+     */
+    private boolean pollConfigEvents(@NotNull final WatchKey key) {
+        boolean configChanged = false;
+        for(final WatchEvent<?> event : key.pollEvents()) {
+            // Too many events happened at once to list, so any file may have changed.
+            if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                configChanged = true;
+                continue;
+            }
+
+            if(event.context() instanceof Path && configFile.getName().equals(event.context().toString())) {
+                configChanged = true;
+            }
+        }
+
+        key.reset();
+        return configChanged;
+    }
+
+    /**
+     * Calculates a checksum of file contents, used to tell if config.yml has actually changed.
+     * @param contents Contents of the file.
+     * @return CRC32 checksum of the contents.
+     */
+    private static long checksum(final byte[] contents) {
+        final CRC32 crc = new CRC32();
+        crc.update(contents, 0, contents.length);
+        return crc.getValue();
+    }
+
+    /**
+     * A config.yml read from the disk, which is not in use yet.
+     */
+    public static final class LoadedConfig {
+        private final FileConfiguration config;
+        private final long checksum;
+
+        /**
+         * Creates the loaded config.
+         * @param config The loaded config.yml FileConfiguration.
+         * @param checksum Checksum of the file's contents.
+         */
+        private LoadedConfig(@NotNull final FileConfiguration config, final long checksum) {
+            this.config = config;
+            this.checksum = checksum;
+        }
+
+        /**
+         * Get the loaded config.
+         * @return config.yml FileConfiguration.
+         */
+        public FileConfiguration getConfig() {
+            return config;
+        }
+
+        /**
+         * Get the checksum of the file's contents.
+         * @return Checksum of config.yml.
+         */
+        public long getChecksum() {
+            return checksum;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how often each player receives feedback, such as block messages and sounds, when their commands are blocked.
+ * Each player has a token bucket that refills over time, and each piece of feedback uses one token.
+ * Clients spamming blocked commands still have every command blocked, but stop receiving feedback once their bucket is empty.
+ */
+public class FeedbackLimiter {
+    private final Map<UUID, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * Takes a token from a player's bucket, if they have one.
+     * @param player Player whose command was blocked.
+     * @param settings Settings containing the size and refill rate of the bucket.
+     * @return Whether the player should receive feedback.
+     */
+    public boolean tryAcquire(@NotNull final Player player, @NotNull final GlobalSettings settings) {
+        // A bucket size of 0 disables the limit.
+        if(settings.getFeedbackBurst() <= 0) {
+            return true;
+        }
+
+        final TokenBucket bucket = buckets.computeIfAbsent(player.getUniqueId(), uuid -> new TokenBucket(settings.getFeedbackBurst()));
+        if(bucket.tryAcquire(settings.getFeedbackBurst(), settings.getFeedbackRate())) {
+            return true;
+        }
+
+        suppressed.increment();
+        return false;
+    }
+
+    /**
+     * Get the number of times feedback has been skipped because a player ran out of tokens.
+     * @return Number of suppressed feedbacks.
+     */
+    public long getSuppressed() {
+        return suppressed.sum();
+    }
+
+    /**
+     * Removes the bucket of a player.
+     * Used when the player leaves the server.
+     * @param player Player to remove the bucket of.
+     */
+    public void remove(@NotNull final Player player) {
+        buckets.remove(player.getUniqueId());
+    }
+
+    /**
+     * A bucket of tokens that refills at a steady rate, up to a maximum.
+     */
+    private static final class TokenBucket {
+        private double tokens;
+        private long lastRefill;
+
+        /**
+         * Creates a full bucket.
+         * @param capacity Maximum number of tokens.
+         */
+        private TokenBucket(final int capacity) {
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        /**
+         * Refills the bucket for the time since it was last used, then takes a token if there is one.
+         * @param capacity Maximum number of tokens.
+         * @param rate Tokens added per second.
+         * @return Whether a token was taken.
+         */
+        private synchronized boolean tryAcquire(final int capacity, final double rate) {
+            final long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * rate / 1_000_000_000.0);
+            lastRefill = now;
+
+            if(tokens < 1) {
+                return false;
+            }
+
+            tokens--;
+            return true;
+        }
+    }
+}
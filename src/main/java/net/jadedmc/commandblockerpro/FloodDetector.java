@@ -0,0 +1,214 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro;
+
+import net.jadedmc.commandblockerpro.events.CommandFloodEvent;
+import net.jadedmc.commandblockerpro.events.FloodType;
+import net.jadedmc.commandblockerpro.utils.ChatUtils;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects players flooding the server with commands, and locks them out of commands or kicks them.
+ * Each player's recent commands are stored in fixed-size ring buffers, so recording a command never allocates memory.
+ */
+public class FloodDetector {
+    private final CommandBlockerProPlugin plugin;
+    private final Map<UUID, FloodTracker> trackers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the flood detector.
+     * @param plugin Instance of the plugin.
+     */
+    public FloodDetector(@NotNull final CommandBlockerProPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Get if a player is currently locked out of using commands.
+     * Checked before any rules, so locked out players cost almost nothing.
+     * @param player Player to check.
+     * @return Whether the player is locked out.
+     */
+    public boolean isLockedOut(@NotNull final Player player) {
+        final FloodTracker tracker = trackers.get(player.getUniqueId());
+        return tracker != null && tracker.lockedUntil - System.nanoTime() > 0;
+    }
+
+    /**
+     * Records that a player used a command.
+     * @param player Player who used the command.
+     * @param settings Settings containing the flood limits.
+     * @return The flood detected, or null if the player is not flooding.
+     */
+    @Nullable
+    public FloodType recordCommand(@NotNull final Player player, @NotNull final GlobalSettings settings) {
+        if(!settings.isFloodProtection() || settings.getFloodMaxCommands() <= 0) {
+            return null;
+        }
+
+        return getTracker(player, settings).recordCommand(settings) ? FloodType.ALL_COMMANDS : null;
+    }
+
+    /**
+     * Records that a player had a command blocked.
+     * @param player Player whose command was blocked.
+     * @param settings Settings containing the flood limits.
+     * @return The flood detected, or null if the player is not flooding.
+     */
+    @Nullable
+    public FloodType recordBlocked(@NotNull final Player player, @NotNull final GlobalSettings settings) {
+        if(!settings.isFloodProtection() || settings.getFloodMaxBlocked() <= 0) {
+            return null;
+        }
+
+        return getTracker(player, settings).recordBlocked(settings) ? FloodType.BLOCKED_COMMANDS : null;
+    }
+
+    /**
+     * Locks out or kicks a player who was caught flooding, unless another plugin cancels the CommandFloodEvent.
+     * @param player Player who is flooding.
+     * @param floodType The kind of flood that was detected.
+     * @param settings Settings containing the lockout time and message.
+     * @return Whether the player was locked out or kicked.
+     */
+    public boolean punish(@NotNull final Player player, @NotNull final FloodType floodType, @NotNull final GlobalSettings settings) {
+        final CommandFloodEvent floodEvent = new CommandFloodEvent(player, floodType, settings.getFloodLockoutTime(), settings.isFloodKick());
+        plugin.getServer().getPluginManager().callEvent(floodEvent);
+        if(floodEvent.isCancelled()) {
+            return false;
+        }
+
+        if(floodEvent.isKick()) {
+            player.kickPlayer(ChatUtils.toLegacy(settings.getFloodMessage()));
+            return true;
+        }
+
+        getTracker(player, settings).lockedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(floodEvent.getLockoutTime());
+        ChatUtils.chat(player, settings.getFloodMessage());
+        return true;
+    }
+
+    /**
+     * Removes everything stored about a player.
+     * Used when the player leaves the server.
+     * @param player Player to remove.
+     */
+    public void remove(@NotNull final Player player) {
+        trackers.remove(player.getUniqueId());
+    }
+
+    /**
+     * Gets the tracker of a player, replacing it if the flood limits were changed by a reload.
+     * @param player Player to get the tracker of.
+     * @param settings Settings containing the flood limits.
+     * @return The player's tracker.
+     */
+    private FloodTracker getTracker(@NotNull final Player player, @NotNull final GlobalSettings settings) {
+        final FloodTracker tracker = trackers.get(player.getUniqueId());
+        if(tracker != null && tracker.fits(settings)) {
+            return tracker;
+        }
+
+        final FloodTracker newTracker = new FloodTracker(settings);
+        if(tracker != null) {
+            newTracker.lockedUntil = tracker.lockedUntil;
+        }
+
+        trackers.put(player.getUniqueId(), newTracker);
+        return newTracker;
+    }
+
+    /**
+     * Stores when a player recently used commands, and when their lockout ends.
+     */
+    private static final class FloodTracker {
+        private final long[] commandTimes;
+        private final long[] blockedTimes;
+        private int commandIndex = 0;
+        private int commandCount = 0;
+        private int blockedIndex = 0;
+        private int blockedCount = 0;
+        private volatile long lockedUntil;
+
+        /**
+         * Creates the tracker.
+         * @param settings Settings containing the flood limits, which decide the size of the ring buffers.
+         */
+        private FloodTracker(@NotNull final GlobalSettings settings) {
+            // Remembering one more time than the limit allows is enough to tell if the limit was passed.
+            this.commandTimes = new long[Math.max(1, settings.getFloodMaxCommands() + 1)];
+            this.blockedTimes = new long[Math.max(1, settings.getFloodMaxBlocked() + 1)];
+            this.lockedUntil = System.nanoTime();
+        }
+
+        /**
+         * Get if the tracker's ring buffers are the right size for the flood limits.
+         * @param settings Settings containing the flood limits.
+         * @return Whether the tracker can be used with the settings.
+         */
+        private boolean fits(@NotNull final GlobalSettings settings) {
+            return commandTimes.length == Math.max(1, settings.getFloodMaxCommands() + 1) && blockedTimes.length == Math.max(1, settings.getFloodMaxBlocked() + 1);
+        }
+
+        /**
+         * Records a command.
+         * @param settings Settings containing the flood window.
+         * @return Whether more commands than allowed were used within the window.
+         */
+        private synchronized boolean recordCommand(@NotNull final GlobalSettings settings) {
+            final long now = System.nanoTime();
+
+            commandTimes[commandIndex] = now;
+            commandIndex = (commandIndex + 1) % commandTimes.length;
+            commandCount = Math.min(commandCount + 1, commandTimes.length);
+
+            // Once the buffer is full, the next slot holds the oldest time, from limit commands before this one.
+            return commandCount == commandTimes.length && now - commandTimes[commandIndex] < TimeUnit.MILLISECONDS.toNanos(settings.getFloodWindow());
+        }
+
+        /**
+         * Records a blocked command.
+         * @param settings Settings containing the flood window.
+         * @return Whether more commands than allowed were blocked within the window.
+         */
+        private synchronized boolean recordBlocked(@NotNull final GlobalSettings settings) {
+            final long now = System.nanoTime();
+
+            blockedTimes[blockedIndex] = now;
+            blockedIndex = (blockedIndex + 1) % blockedTimes.length;
+            blockedCount = Math.min(blockedCount + 1, blockedTimes.length);
+
+            // Once the buffer is full, the next slot holds the oldest time, from limit commands before this one.
+            return blockedCount == blockedTimes.length && now - blockedTimes[blockedIndex] < TimeUnit.MILLISECONDS.toNanos(settings.getFloodWindow());
+        }
+    }
+}
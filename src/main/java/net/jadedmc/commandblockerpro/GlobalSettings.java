@@ -0,0 +1,396 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro;
+
+import net.jadedmc.commandblockerpro.rules.RegexEngine;
+import net.jadedmc.commandblockerpro.utils.MessageTemplate;
+import org.bukkit.Sound;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stores every setting in config.yml that isn't part of a rule.
+ * Settings are read and checked once when the config is loaded, so nothing has to be read from the config while commands are checked.
+ * Invalid settings are replaced with their defaults and listed as warnings.
+ */
+public class GlobalSettings {
+    private final String blockMessage;
+    private final MessageTemplate blockMessageTemplate;
+    private final Sound blockSound;
+    private final float blockSoundVolume;
+    private final float blockSoundPitch;
+    private final RegexEngine regexEngine;
+    private final int matchCacheSize;
+    private final int tabListCacheSize;
+    private final long placeholderCacheTime;
+    private final boolean autoReload;
+    private final long autoReloadDelay;
+    private final int feedbackBurst;
+    private final double feedbackRate;
+    private final boolean floodProtection;
+    private final long floodWindow;
+    private final int floodMaxBlocked;
+    private final int floodMaxCommands;
+    private final long floodLockoutTime;
+    private final boolean floodKick;
+    private final String floodMessage;
+    private final boolean metrics;
+    private final boolean recorder;
+    private final boolean auditLog;
+    private final int auditBufferSize;
+    private final long auditMaxFileSize;
+    private final long auditRotateInterval;
+    private final boolean auditCompress;
+    private final List<String> warnings = new ArrayList<>();
+
+    /**
+     * Loads the settings from config.yml.
+     * @param config Root section of config.yml.
+     */
+    public GlobalSettings(@NotNull final ConfigurationSection config) {
+        // Look for the block message, parsing it once so it doesn't have to be parsed every time a command is blocked.
+        if(config.isSet("blockMessage")) {
+            blockMessage = config.getString("blockMessage");
+            blockMessageTemplate = new MessageTemplate(blockMessage);
+        }
+        else {
+            blockMessage = null;
+            blockMessageTemplate = null;
+        }
+
+        // Look for the block sound.
+        blockSound = parseSound(config.getString("blockSound.sound"), warnings);
+        blockSoundVolume = (float) config.getDouble("blockSound.volume", 1.0);
+        blockSoundPitch = (float) config.getDouble("blockSound.pitch", 1.0);
+
+        // Get the configured regex engine, falling back to Java's built-in engine.
+        final String configuredEngine = config.getString("regexEngine", "JAVA");
+        RegexEngine engine = RegexEngine.JAVA;
+        try {
+            engine = RegexEngine.valueOf(configuredEngine.toUpperCase());
+        }
+        catch (IllegalArgumentException exception) {
+            warnings.add("Unknown regex engine \"" + configuredEngine + "\". Using the JAVA regex engine instead.");
+        }
+        regexEngine = engine;
+
+        matchCacheSize = Math.max(0, config.getInt("matchCacheSize", 1024));
+        tabListCacheSize = Math.max(0, config.getInt("tabListCacheSize", 64));
+        placeholderCacheTime = Math.max(0, config.getLong("placeholderCacheTime", 1000));
+        autoReload = config.getBoolean("autoReload.enabled", false);
+        autoReloadDelay = Math.max(0, config.getLong("autoReload.delay", 1000));
+        feedbackBurst = Math.max(0, config.getInt("feedbackLimit.burst", 0));
+        feedbackRate = Math.max(0, config.getDouble("feedbackLimit.perSecond", 1.0));
+
+        // Times for flood protection are set in seconds.
+        floodProtection = config.getBoolean("floodProtection.enabled", false);
+        floodWindow = (long) (Math.max(0, config.getDouble("floodProtection.window", 5)) * 1000);
+        floodMaxBlocked = Math.max(0, config.getInt("floodProtection.maxBlocked", 10));
+        floodMaxCommands = Math.max(0, config.getInt("floodProtection.maxCommands", 40));
+        floodLockoutTime = (long) (Math.max(0, config.getDouble("floodProtection.lockoutTime", 30)) * 1000);
+        floodKick = config.getBoolean("floodProtection.kick", false);
+        floodMessage = config.getString("floodProtection.message", "<red>You are sending commands too quickly. Please wait before trying again.");
+
+        metrics = config.getBoolean("metrics", true);
+        recorder = config.getBoolean("recorder.enabled", false);
+
+        // File sizes are set in megabytes, and the rotate interval in hours.
+        auditLog = config.getBoolean("auditLog.enabled", false);
+        auditBufferSize = Math.max(1, config.getInt("auditLog.bufferSize", 8192));
+        auditMaxFileSize = (long) (Math.max(0, config.getDouble("auditLog.maxFileSize", 10)) * 1024 * 1024);
+        auditRotateInterval = (long) (Math.max(0, config.getDouble("auditLog.rotateInterval", 24)) * 60 * 60 * 1000);
+        auditCompress = config.getBoolean("auditLog.compress", false);
+    }
+
+    /**
+     * Gets a sound by its name, as set in config.yml.
+     * @param name Name of the sound, or null if not set.
+     * @param warnings Warnings to add to if the sound doesn't exist.
+     * @return The sound, or null if it isn't set or doesn't exist.
+     */
+    @Nullable
+    public static Sound parseSound(@Nullable final String name, @NotNull final Collection<String> warnings) {
+        if(name == null) {
+            return null;
+        }
+
+        try {
+            return Sound.valueOf(name.toUpperCase());
+        }
+        catch (IllegalArgumentException exception) {
+            warnings.add("Unknown sound \"" + name + "\" was skipped.");
+            return null;
+        }
+    }
+
+    /**
+     * Get if a global block message has been configured.
+     * @return Whether there is a global block message.
+     */
+    public boolean hasBlockMessage() {
+        return blockMessage != null;
+    }
+
+    /**
+     * Get the global block message.
+     * @return The block message, or null if not set.
+     */
+    @Nullable
+    public String getBlockMessage() {
+        return blockMessage;
+    }
+
+    /**
+     * Get the global block message, parsed ahead of time.
+     * @return The parsed block message, or null if not set.
+     */
+    @Nullable
+    public MessageTemplate getBlockMessageTemplate() {
+        return blockMessageTemplate;
+    }
+
+    /**
+     * Get if a valid global block sound has been configured.
+     * @return Whether there is a global block sound.
+     */
+    public boolean hasBlockSound() {
+        return blockSound != null;
+    }
+
+    /**
+     * Get the global block sound.
+     * @return The block sound, or null if not set.
+     */
+    @Nullable
+    public Sound getBlockSound() {
+        return blockSound;
+    }
+
+    /**
+     * Get the volume of the global block sound.
+     * @return Volume of the block sound, or 1.0 if not set.
+     */
+    public float getBlockSoundVolume() {
+        return blockSoundVolume;
+    }
+
+    /**
+     * Get the pitch of the global block sound.
+     * @return Pitch of the block sound, or 1.0 if not set.
+     */
+    public float getBlockSoundPitch() {
+        return blockSoundPitch;
+    }
+
+    /**
+     * Get the engine used to check the regex filters of every rule.
+     * @return Regex Engine.
+     */
+    public RegexEngine getRegexEngine() {
+        return regexEngine;
+    }
+
+    /**
+     * Get the maximum number of commands to remember the matching rules of.
+     * @return Size of the match cache.
+     */
+    public int getMatchCacheSize() {
+        return matchCacheSize;
+    }
+
+    /**
+     * Get the maximum number of tab lists to remember the hidden commands of.
+     * @return Size of the tab list cache.
+     */
+    public int getTabListCacheSize() {
+        return tabListCacheSize;
+    }
+
+    /**
+     * Get how long the value of each PlaceholderAPI placeholder is remembered for each player.
+     * @return Time in milliseconds.
+     */
+    public long getPlaceholderCacheTime() {
+        return placeholderCacheTime;
+    }
+
+    /**
+     * Get if the plugin should reload itself when config.yml changes.
+     * @return Whether auto reload is enabled.
+     */
+    public boolean isAutoReload() {
+        return autoReload;
+    }
+
+    /**
+     * Get how long config.yml must be left alone before it is automatically reloaded.
+     * @return Time in milliseconds.
+     */
+    public long getAutoReloadDelay() {
+        return autoReloadDelay;
+    }
+
+    /**
+     * Get the most block messages and sounds a player can receive in a row before they are limited.
+     * @return Size of each player's token bucket, or 0 if feedback is not limited.
+     */
+    public int getFeedbackBurst() {
+        return feedbackBurst;
+    }
+
+    /**
+     * Get how many block messages and sounds a player can receive per second once they are limited.
+     * @return Tokens added to each player's bucket per second.
+     */
+    public double getFeedbackRate() {
+        return feedbackRate;
+    }
+
+    /**
+     * Get if players flooding the server with commands should be locked out or kicked.
+     * @return Whether flood protection is enabled.
+     */
+    public boolean isFloodProtection() {
+        return floodProtection;
+    }
+
+    /**
+     * Get the length of the window commands are counted in for flood protection.
+     * @return Time in milliseconds.
+     */
+    public long getFloodWindow() {
+        return floodWindow;
+    }
+
+    /**
+     * Get the most blocked commands a player can use within the flood window.
+     * @return Maximum blocked commands, or 0 if not limited.
+     */
+    public int getFloodMaxBlocked() {
+        return floodMaxBlocked;
+    }
+
+    /**
+     * Get the most commands of any kind a player can use within the flood window.
+     * @return Maximum commands, or 0 if not limited.
+     */
+    public int getFloodMaxCommands() {
+        return floodMaxCommands;
+    }
+
+    /**
+     * Get how long a flooding player is locked out of commands for.
+     * @return Time in milliseconds.
+     */
+    public long getFloodLockoutTime() {
+        return floodLockoutTime;
+    }
+
+    /**
+     * Get if flooding players should be kicked instead of locked out.
+     * @return Whether flooding players are kicked.
+     */
+    public boolean isFloodKick() {
+        return floodKick;
+    }
+
+    /**
+     * Get the message sent to a flooding player when they are locked out, or shown when they are kicked.
+     * @return Flood message.
+     */
+    public String getFloodMessage() {
+        return floodMessage;
+    }
+
+    /**
+     * Get if rule hit counts and timings should be recorded for /cb stats.
+     * @return Whether metrics are enabled.
+     */
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get if the commands players use should be recorded for the TrafficReplay tool.
+     * @return Whether the traffic recorder is enabled.
+     */
+    public boolean isRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Get if blocked commands should be written to the audit log.
+     * @return Whether the audit log is enabled.
+     */
+    public boolean isAuditLog() {
+        return auditLog;
+    }
+
+    /**
+     * Get the most blocked commands that can wait to be written to the audit log before new ones are dropped.
+     * @return Size of the audit log buffer.
+     */
+    public int getAuditBufferSize() {
+        return auditBufferSize;
+    }
+
+    /**
+     * Get how large an audit log file can get before a new one is started.
+     * @return Size in bytes on disk, or 0 if files are not rotated by size.
+     */
+    public long getAuditMaxFileSize() {
+        return auditMaxFileSize;
+    }
+
+    /**
+     * Get how long an audit log file is written to before a new one is started.
+     * @return Time in milliseconds, or 0 if files are not rotated by time.
+     */
+    public long getAuditRotateInterval() {
+        return auditRotateInterval;
+    }
+
+    /**
+     * Get if audit log files should be compressed with gzip.
+     * @return Whether audit logs are compressed.
+     */
+    public boolean isAuditCompress() {
+        return auditCompress;
+    }
+
+    /**
+     * Get the problems found while loading the settings, such as unknown sounds.
+     * @return Load warnings of the settings.
+     */
+    public Collection<String> getWarnings() {
+        return Collections.unmodifiableList(warnings);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro;
+
+import me.clip.placeholderapi.PlaceholderAPI;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sets PlaceholderAPI placeholders in messages, remembering the value of each placeholder for each player for a short time.
+ * Players who keep running blocked commands would otherwise have every placeholder worked out again each time,
+ * which can be slow for some placeholders, such as those from economy or statistics plugins.
+ */
+public class PlaceholderManager {
+    // Matches placeholders the same way PlaceholderAPI does.
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("%([^%]+)%");
+
+    private final CommandBlockerProPlugin plugin;
+    private final Map<UUID, Map<String, CachedValue>> cache = new ConcurrentHashMap<>();
+    private volatile long cacheTime = 0;
+
+    /**
+     * Creates the placeholder manager.
+     * @param plugin Instance of the plugin.
+     */
+    public PlaceholderManager(@NotNull final CommandBlockerProPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Finds every placeholder in a message, so messages without any can skip PlaceholderAPI.
+     * @param message Message to check.
+     * @return Every placeholder in the message, including the surrounding '%'.
+     */
+    public static List<String> findPlaceholders(@NotNull final String message) {
+        if(message.indexOf('%') == -1) {
+            return Collections.emptyList();
+        }
+
+        final List<String> placeholders = new ArrayList<>();
+        final Matcher matcher = PLACEHOLDER_PATTERN.matcher(message);
+        while(matcher.find()) {
+            placeholders.add(matcher.group());
+        }
+
+        return placeholders;
+    }
+
+    /**
+     * Sets how long the value of a placeholder is remembered for.
+     * Clears any values already remembered.
+     * @param cacheTime Milliseconds to remember values for. 0 disables caching.
+     */
+    public void setCacheTime(final long cacheTime) {
+        this.cacheTime = cacheTime;
+        cache.clear();
+    }
+
+    /**
+     * Replaces every placeholder in a message with its value for a player.
+     * Does nothing if PlaceholderAPI is not installed.
+     * @param player Player to get the values for.
+     * @param message Message to set placeholders in.
+     * @return Message with the placeholders set.
+     */
+    public String setPlaceholders(@NotNull final Player player, @NotNull final String message) {
+        if(!plugin.getHookManager().usePlaceholderAPI()) {
+            return message;
+        }
+
+        if(cacheTime <= 0) {
+            return PlaceholderAPI.setPlaceholders(player, message);
+        }
+
+        final Map<String, CachedValue> values = cache.computeIfAbsent(player.getUniqueId(), uuid -> new ConcurrentHashMap<>());
+        final long now = System.currentTimeMillis();
+
+        // Replace each placeholder with its remembered value, getting a new one if it has expired.
+        final Matcher matcher = PLACEHOLDER_PATTERN.matcher(message);
+        final StringBuffer result = new StringBuffer(message.length());
+        while(matcher.find()) {
+            final String placeholder = matcher.group();
+
+            CachedValue value = values.get(placeholder);
+            if(value == null || value.expiresAt <= now) {
+                value = new CachedValue(PlaceholderAPI.setPlaceholders(player, placeholder), now + cacheTime);
+                values.put(placeholder, value);
+            }
+
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value.value));
+        }
+        matcher.appendTail(result);
+
+        return result.toString();
+    }
+
+    /**
+     * Forgets every remembered value of a player.
+     * Used when the player leaves the server.
+     * @param player Player to forget the values of.
+     */
+    public void remove(@NotNull final Player player) {
+        cache.remove(player.getUniqueId());
+    }
+
+    /**
+     * The value of a placeholder, and when it should be worked out again.
+     */
+    private static final class CachedValue {
+        private final String value;
+        private final long expiresAt;
+
+        /**
+         * Creates the cached value.
+         * @param value Value of the placeholder.
+         * @param expiresAt Time, in milliseconds, when the value expires.
+         */
+        private CachedValue(@NotNull final String value, final long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
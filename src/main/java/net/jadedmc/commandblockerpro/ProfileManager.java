@@ -0,0 +1,97 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro;
+
+import net.jadedmc.commandblockerpro.rules.BypassProfile;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the bypass profile of every online player.
+ * Profiles are created when a player joins, updated when their permissions may have changed, and removed when they leave.
+ */
+public class ProfileManager {
+    private final CommandBlockerProPlugin plugin;
+    private final Map<UUID, BypassProfile> profiles = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the profile manager.
+     * @param plugin Instance of the plugin.
+     */
+    public ProfileManager(@NotNull final CommandBlockerProPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Get the bypass profile of a player, creating it if needed or if the rules have been reloaded since.
+     * @param player Player to get the profile of.
+     * @return The player's bypass profile.
+     */
+    public BypassProfile getProfile(@NotNull final Player player) {
+        final BypassProfile profile = profiles.get(player.getUniqueId());
+
+        // Profiles created from rules that have since been reloaded are out of date.
+        if(profile == null || profile.getRuleSet() != plugin.getRuleManager().getRuleSet()) {
+            return refresh(player);
+        }
+
+        return profile;
+    }
+
+    /**
+     * Recomputes the bypass profile of a player from their current permissions.
+     * @param player Player to update the profile of.
+     * @return The player's new bypass profile.
+     */
+    public BypassProfile refresh(@NotNull final Player player) {
+        final BypassProfile profile = new BypassProfile(player, plugin.getRuleManager().getRuleSet());
+        profiles.put(player.getUniqueId(), profile);
+        return profile;
+    }
+
+    /**
+     * Recomputes the bypass profile of every online player.
+     * Used when the rules are reloaded.
+     */
+    public void refreshAll() {
+        profiles.clear();
+        for(final Player player : plugin.getServer().getOnlinePlayers()) {
+            refresh(player);
+        }
+    }
+
+    /**
+     * Removes the bypass profile of a player.
+     * Used when the player leaves the server.
+     * @param player Player to remove the profile of.
+     */
+    public void remove(@NotNull final Player player) {
+        profiles.remove(player.getUniqueId());
+    }
+}
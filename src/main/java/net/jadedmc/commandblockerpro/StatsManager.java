@@ -0,0 +1,227 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro;
+
+import net.jadedmc.commandblockerpro.rules.HiddenCommands;
+import net.jadedmc.commandblockerpro.rules.Rule;
+import net.jadedmc.commandblockerpro.rules.RuleSet;
+import net.jadedmc.commandblockerpro.utils.LatencyHistogram;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how often each rule catches, blocks, and hides commands, how many of the commands it caught were found in the match cache,
+ * and how long the listeners take to check them.
+ * Used by /cb stats. Counts are kept by rule name, so they carry over when the plugin is reloaded.
+ * Recording can be turned off entirely with the "metrics" option in config.yml.
+ */
+public class StatsManager {
+    private final Map<String, RuleStats> ruleStats = new ConcurrentHashMap<>();
+    private final LatencyHistogram commandTimes = new LatencyHistogram();
+    private final LatencyHistogram tabListTimes = new LatencyHistogram();
+
+    /**
+     * Records how long checking a command took.
+     * @param nanos Time taken in nanoseconds.
+     */
+    public void recordCommandTime(final long nanos) {
+        commandTimes.record(nanos);
+    }
+
+    /**
+     * Records how long filtering a tab list took.
+     * @param nanos Time taken in nanoseconds.
+     */
+    public void recordTabListTime(final long nanos) {
+        tabListTimes.record(nanos);
+    }
+
+    /**
+     * Records the rules that caught a command, before checking if the player can bypass them.
+     * @param ruleSet Rules the command was checked against.
+     * @param matchingRules Ids of the rules that caught the command.
+     * @param cached Whether the rules were found in the match cache.
+     */
+    public void recordMatches(@NotNull final RuleSet ruleSet, @NotNull final BitSet matchingRules, final boolean cached) {
+        for(int ruleId = matchingRules.nextSetBit(0); ruleId >= 0; ruleId = matchingRules.nextSetBit(ruleId + 1)) {
+            final RuleStats stats = getRuleStats(ruleSet.getRule(ruleId));
+            stats.matches.increment();
+            if(cached) {
+                stats.cacheHits.increment();
+            }
+        }
+    }
+
+    /**
+     * Records a rule blocking a command.
+     * @param rule Rule that blocked the command.
+     */
+    public void recordBlock(@NotNull final Rule rule) {
+        getRuleStats(rule).blocks.increment();
+    }
+
+    /**
+     * Records the commands hidden from a player's tab list.
+     * @param ruleSet Rules the tab list was filtered with.
+     * @param hiddenCommands Commands that were hidden.
+     */
+    public void recordHides(@NotNull final RuleSet ruleSet, @NotNull final HiddenCommands hiddenCommands) {
+        if(hiddenCommands.getCommands().isEmpty()) {
+            return;
+        }
+
+        for(final Rule rule : ruleSet.getRules()) {
+            final int hideCount = hiddenCommands.getHideCount(rule.getId());
+            if(hideCount > 0) {
+                getRuleStats(rule).hides.add(hideCount);
+            }
+        }
+    }
+
+    /**
+     * Get the recorded times for checking commands.
+     * @return Command check times.
+     */
+    public LatencyHistogram getCommandTimes() {
+        return commandTimes;
+    }
+
+    /**
+     * Get the recorded times for filtering tab lists.
+     * @return Tab list filter times.
+     */
+    public LatencyHistogram getTabListTimes() {
+        return tabListTimes;
+    }
+
+    /**
+     * Get the rules that have blocked and hidden the most commands.
+     * @param limit Maximum number of rules to get.
+     * @return Stats of the top rules, from most to least active.
+     */
+    public List<RuleStats> getTopRules(final int limit) {
+        // Totals are read once, since commands blocked while sorting would otherwise change the order mid-sort.
+        final Map<RuleStats, Long> totals = new HashMap<>();
+        for(final RuleStats stats : ruleStats.values()) {
+            totals.put(stats, stats.getTotal());
+        }
+
+        final List<RuleStats> topRules = new ArrayList<>(totals.keySet());
+        topRules.sort((first, second) -> Long.compare(totals.get(second), totals.get(first)));
+        return topRules.subList(0, Math.min(limit, topRules.size()));
+    }
+
+    /**
+     * Removes every recorded count and time.
+     */
+    public void reset() {
+        ruleStats.clear();
+        commandTimes.reset();
+        tabListTimes.reset();
+    }
+
+    /**
+     * Gets the stats of a rule, creating them if they don't exist.
+     * @param rule Rule to get the stats of.
+     * @return Stats of the rule.
+     */
+    private RuleStats getRuleStats(@NotNull final Rule rule) {
+        return ruleStats.computeIfAbsent(rule.getName(), RuleStats::new);
+    }
+
+    /**
+     * The recorded counts of a single rule.
+     */
+    public static class RuleStats {
+        private final String name;
+        private final LongAdder matches = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder blocks = new LongAdder();
+        private final LongAdder hides = new LongAdder();
+
+        /**
+         * Creates the stats.
+         * @param name Name of the rule.
+         */
+        private RuleStats(@NotNull final String name) {
+            this.name = name;
+        }
+
+        /**
+         * Get the name of the rule.
+         * @return Rule name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the number of commands the rule has caught, including ones players could bypass.
+         * @return Number of matches.
+         */
+        public long getMatches() {
+            return matches.sum();
+        }
+
+        /**
+         * Get the number of commands the rule has caught that were found in the match cache, without checking the rule's filters.
+         * @return Number of cache hits.
+         */
+        public long getCacheHits() {
+            return cacheHits.sum();
+        }
+
+        /**
+         * Get the number of commands the rule has blocked.
+         * @return Number of blocks.
+         */
+        public long getBlocks() {
+            return blocks.sum();
+        }
+
+        /**
+         * Get the number of commands the rule has hidden from tab lists.
+         * @return Number of hides.
+         */
+        public long getHides() {
+            return hides.sum();
+        }
+
+        /**
+         * Get the number of commands the rule has blocked and hidden.
+         * @return Total blocks and hides.
+         */
+        public long getTotal() {
+            return getBlocks() + getHides();
+        }
+    }
+}
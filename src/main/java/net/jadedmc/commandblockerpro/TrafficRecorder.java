@@ -0,0 +1,395 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro;
+
+import net.jadedmc.commandblockerpro.rules.BypassProfile;
+import net.jadedmc.commandblockerpro.rules.NormalizedCommand;
+import net.jadedmc.commandblockerpro.rules.Rule;
+import net.jadedmc.commandblockerpro.rules.RuleSet;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records the commands players use and the size of their tab lists, so rule changes can be tested against real traffic
+ * with the TrafficReplay tool. Turned on with the "recorder" option in config.yml.
+ * Listeners add records to a lock-free queue, and a background thread writes them to a file in the recordings folder.
+ * Only normalized command names are recorded. Players are replaced with permission profiles,
+ * which only list the bypass permissions the player had.
+ * <p>
+ * Recordings start with {@link #MAGIC} and {@link #VERSION} as ints, followed by records.
+ * Each record is an int length, then that many bytes: a type byte, a long timestamp in milliseconds, and an int profile id.
+ * {@link #PROFILE} records are followed by the number of permissions and each permission as UTF.
+ * {@link #COMMAND} records are followed by the normalized command as UTF.
+ * {@link #TAB_LIST} records are followed by the number of commands sent to the player as an int.
+ * {@link #RULES} records describe what the following records can show, and are written before the first record made with new rules.
+ * Their profile id is -1, and they are followed by the number of bypass permissions the rules use and each one as UTF,
+ * then the number of listed commands with arguments and each one as UTF. Other configs can't be replayed exactly if they use anything else.
+ * Readers should skip records with unknown types, using their length.
+ */
+public class TrafficRecorder {
+    public static final int MAGIC = 0x43425054;
+    public static final int VERSION = 1;
+    public static final byte PROFILE = 0;
+    public static final byte COMMAND = 1;
+    public static final byte TAB_LIST = 2;
+    public static final byte RULES = 3;
+
+    // Records waiting to be written are limited, so a stalled disk can't use up the server's memory.
+    private static final int MAX_PENDING = 65536;
+    private static final int MAX_CACHED_PROFILES = 4096;
+
+    private final Plugin plugin;
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean recording = false;
+    private Thread writerThread = null;
+    private File file = null;
+
+    /**
+     * Creates the recorder, without starting it.
+     * @param plugin Instance of the plugin.
+     */
+    public TrafficRecorder(@NotNull final Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts recording to a new file in the recordings folder, if not already recording.
+     */
+    public synchronized void start() {
+        if(recording) {
+            return;
+        }
+
+        final File folder = new File(plugin.getDataFolder(), "recordings");
+        final File recordingFile = new File(folder, "traffic-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".bin");
+        final DataOutputStream output;
+        try {
+            if(!folder.isDirectory() && !folder.mkdirs()) {
+                throw new IOException("Could not create " + folder.getPath());
+            }
+
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(recordingFile), 65536));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+        }
+        catch (IOException exception) {
+            plugin.getLogger().warning("Could not start recording commands: " + exception.getMessage());
+            return;
+        }
+
+        file = recordingFile;
+        recording = true;
+        writerThread = new Thread(() -> write(output), "CommandBlockerPro Traffic Recorder");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        plugin.getLogger().info("Recording commands to " + recordingFile.getPath());
+    }
+
+    /**
+     * Stops recording, waiting for every queued record to be written.
+     */
+    public synchronized void stop() {
+        if(!recording) {
+            return;
+        }
+
+        recording = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        writerThread = null;
+        file = null;
+    }
+
+    /**
+     * Get if commands are being recorded.
+     * @return Whether the recorder is running.
+     */
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Get the file commands are being recorded to.
+     * @return Recording file, or null if not recording.
+     */
+    @Nullable
+    public synchronized File getFile() {
+        return file;
+    }
+
+    /**
+     * Get the number of records skipped because too many were waiting to be written.
+     * @return Number of dropped records.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Records a player using a command.
+     * Only the arguments the player's rules look at are recorded, which is none unless a rule lists commands with arguments.
+     * @param profile Bypass profile of the player.
+     * @param command Command the player used.
+     */
+    public void recordCommand(@NotNull final BypassProfile profile, @NotNull final NormalizedCommand command) {
+        if(recording) {
+            offer(new Entry(COMMAND, profile, profile.getRuleSet().getMatchKey(command), 0));
+        }
+    }
+
+    /**
+     * Records the server sending a player their tab list.
+     * @param profile Bypass profile of the player.
+     * @param size Number of commands sent to the player.
+     */
+    public void recordTabList(@NotNull final BypassProfile profile, final int size) {
+        if(recording) {
+            offer(new Entry(TAB_LIST, profile, null, size));
+        }
+    }
+
+    /**
+     * Adds a record to the queue, unless too many are already waiting.
+     * @param entry Record to add.
+     */
+    private void offer(@NotNull final Entry entry) {
+        if(pending.incrementAndGet() > MAX_PENDING) {
+            pending.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+
+        queue.offer(entry);
+    }
+
+    /**
+     * Writes queued records until the recorder is stopped and the queue is empty.
+     * Runs on the writer thread.
+     * @param output Stream to write the records to.
+     */
+    private void write(@NotNull final DataOutputStream output) {
+        // Profiles are written once, then referred to by id.
+        // Bypass profiles are mapped to ids first, so the permissions are only worked out once per profile.
+        final Map<Set<String>, Integer> profileIds = new HashMap<>();
+        final Map<BypassProfile, Integer> cachedProfiles = new HashMap<>();
+        RuleSet lastRuleSet = null;
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        final DataOutputStream record = new DataOutputStream(buffer);
+
+        try {
+            while(recording || !queue.isEmpty()) {
+                final Entry entry = queue.poll();
+
+                // Write everything to disk while waiting for more records.
+                if(entry == null) {
+                    output.flush();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+                    continue;
+                }
+                pending.decrementAndGet();
+
+                // Describe the rules the following records were made with, whenever they change.
+                if(entry.profile.getRuleSet() != lastRuleSet) {
+                    lastRuleSet = entry.profile.getRuleSet();
+                    writeRules(output, buffer, record, lastRuleSet, entry.time);
+                }
+
+                Integer profileId = cachedProfiles.get(entry.profile);
+                if(profileId == null) {
+                    final Set<String> permissions = getPermissions(entry.profile);
+                    profileId = profileIds.get(permissions);
+
+                    // New profiles are written before the first record that uses them.
+                    if(profileId == null) {
+                        profileId = profileIds.size();
+                        profileIds.put(permissions, profileId);
+
+                        buffer.reset();
+                        record.writeByte(PROFILE);
+                        record.writeLong(entry.time);
+                        record.writeInt(profileId);
+                        record.writeInt(permissions.size());
+                        for(final String permission : permissions) {
+                            record.writeUTF(permission);
+                        }
+                        writeRecord(output, buffer);
+                    }
+
+                    // Profiles are replaced after every reload, so old ones are forgotten now and then.
+                    if(cachedProfiles.size() >= MAX_CACHED_PROFILES) {
+                        cachedProfiles.clear();
+                    }
+                    cachedProfiles.put(entry.profile, profileId);
+                }
+
+                buffer.reset();
+                record.writeByte(entry.type);
+                record.writeLong(entry.time);
+                record.writeInt(profileId);
+                if(entry.type == COMMAND) {
+                    record.writeUTF(entry.command);
+                }
+                else {
+                    record.writeInt(entry.size);
+                }
+                writeRecord(output, buffer);
+            }
+        }
+        catch (IOException exception) {
+            plugin.getLogger().warning("Could not record commands: " + exception.getMessage());
+            recording = false;
+        }
+        finally {
+            try {
+                output.close();
+            }
+            catch (IOException exception) {
+                exception.printStackTrace();
+            }
+
+            // Anything left can't be written anymore.
+            queue.clear();
+            pending.set(0);
+        }
+    }
+
+    /**
+     * Writes a record listing the bypass permissions and listed commands with arguments of a set of rules.
+     * @param output Stream to write the record to.
+     * @param buffer Buffer to build the record in.
+     * @param record Stream writing to the buffer.
+     * @param ruleSet Rules to describe.
+     * @param time Time of the record.
+     * @throws IOException If the record could not be written.
+     */
+    private static void writeRules(@NotNull final DataOutputStream output, @NotNull final ByteArrayOutputStream buffer, @NotNull final DataOutputStream record, @NotNull final RuleSet ruleSet, final long time) throws IOException {
+        final Set<String> permissions = new TreeSet<>();
+        final Set<String> listedCommands = new TreeSet<>();
+        for(final Rule rule : ruleSet.getRules()) {
+            if(!rule.getBypassPermission().isEmpty()) {
+                permissions.add(rule.getBypassPermission());
+            }
+
+            for(final String listedCommand : rule.getCommands()) {
+                if(listedCommand.indexOf(' ') >= 0) {
+                    listedCommands.add(listedCommand);
+                }
+            }
+        }
+
+        buffer.reset();
+        record.writeByte(RULES);
+        record.writeLong(time);
+        record.writeInt(-1);
+        record.writeInt(permissions.size());
+        for(final String permission : permissions) {
+            record.writeUTF(permission);
+        }
+        record.writeInt(listedCommands.size());
+        for(final String listedCommand : listedCommands) {
+            record.writeUTF(listedCommand);
+        }
+        writeRecord(output, buffer);
+    }
+
+    /**
+     * Writes a record with its length in front.
+     * @param output Stream to write the record to.
+     * @param buffer Contents of the record.
+     * @throws IOException If the record could not be written.
+     */
+    private static void writeRecord(@NotNull final DataOutputStream output, @NotNull final ByteArrayOutputStream buffer) throws IOException {
+        output.writeInt(buffer.size());
+        buffer.writeTo(output);
+    }
+
+    /**
+     * Gets the bypass permissions a player with a bypass profile has.
+     * @param profile Bypass profile of the player.
+     * @return Sorted bypass permissions.
+     */
+    private static Set<String> getPermissions(@NotNull final BypassProfile profile) {
+        final Set<String> permissions = new TreeSet<>();
+        for(final Rule rule : profile.getRuleSet().getRules()) {
+            if(!rule.getBypassPermission().isEmpty() && profile.canBypass(rule.getId())) {
+                permissions.add(rule.getBypassPermission());
+            }
+        }
+
+        return permissions;
+    }
+
+    /**
+     * A record waiting to be written.
+     */
+    private static final class Entry {
+        private final byte type;
+        private final long time = System.currentTimeMillis();
+        private final BypassProfile profile;
+        private final String command;
+        private final int size;
+
+        /**
+         * Creates the record.
+         * @param type Type of the record.
+         * @param profile Bypass profile of the player.
+         * @param command Normalized command, for command records.
+         * @param size Number of commands sent, for tab list records.
+         */
+        private Entry(final byte type, @NotNull final BypassProfile profile, @Nullable final String command, final int size) {
+            this.type = type;
+            this.profile = profile;
+            this.command = command;
+            this.size = size;
+        }
+    }
+}
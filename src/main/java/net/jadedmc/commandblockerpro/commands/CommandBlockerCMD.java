@@ -25,16 +25,30 @@
 package net.jadedmc.commandblockerpro.commands;
 
 import net.jadedmc.commandblockerpro.CommandBlockerProPlugin;
+import net.jadedmc.commandblockerpro.StatsManager;
+import net.jadedmc.commandblockerpro.rules.BypassProfile;
+import net.jadedmc.commandblockerpro.rules.NormalizedCommand;
+import net.jadedmc.commandblockerpro.rules.Rule;
+import net.jadedmc.commandblockerpro.rules.RuleExplanation;
+import net.jadedmc.commandblockerpro.rules.RuleSet;
 import net.jadedmc.commandblockerpro.utils.ChatUtils;
+import net.jadedmc.commandblockerpro.utils.LatencyHistogram;
+import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * This class runs the /commandblocker command, which is the main admin command for the plugin.
@@ -44,6 +58,7 @@ import java.util.List;
  * - cbp
  */
 public class CommandBlockerCMD implements CommandExecutor, TabCompleter {
+    private static final String ALL_RULES_OPTION = "--all";
     private final CommandBlockerProPlugin plugin;
 
     /**
@@ -75,9 +90,32 @@ public class CommandBlockerCMD implements CommandExecutor, TabCompleter {
 
         switch (subCommand) {
             // Reloads all plugin configuration files.
+            // Files are loaded in the background, so the result is sent once it finishes.
             case "reload":
-                plugin.reload();
-                ChatUtils.chat(sender, "<green><bold>CommandBlockerPro</bold> <dark_gray>» <green>Configuration files reloaded successfully! You may need to relog for some changes to take effect.");
+                ChatUtils.chat(sender, "<green><bold>CommandBlockerPro</bold> <dark_gray>» <green>Reloading configuration files...");
+                plugin.reload().whenComplete((ignored, error) -> {
+                    if(error == null) {
+                        ChatUtils.chat(sender, "<green><bold>CommandBlockerPro</bold> <dark_gray>» <green>Configuration files reloaded successfully! You may need to relog for some changes to take effect.");
+                    }
+                    else {
+                        ChatUtils.chat(sender, "<red><bold>CommandBlockerPro</bold> <dark_gray>» <red>Could not reload configuration files, so the previous rules are still in use. Check the console for details.");
+                    }
+                });
+                return true;
+
+            // Displays rule hit counts and timings.
+            case "stats":
+                stats(sender, args);
+                return true;
+
+            // Checks how the rules treat a command for a player, without blocking anything.
+            case "test":
+                test(sender, args, false);
+                return true;
+
+            // Same as test, but also shows how each rule and filter treats the command.
+            case "explain":
+                test(sender, args, true);
                 return true;
 
             // Displays the plugin version.
@@ -94,12 +132,228 @@ public class CommandBlockerCMD implements CommandExecutor, TabCompleter {
             default:
                 ChatUtils.chat(sender, "<green><bold>CommandBlockerPro Commands");
                 ChatUtils.chat(sender, "<green><click:suggest_command:\"/cb reload\">/cb reload</click> <dark_gray>» <white>Reloads all configuration files.");
+                ChatUtils.chat(sender, "<green><click:suggest_command:\"/cb stats\">/cb stats</click> <dark_gray>» <white>Displays rule hit counts and timings.");
+                ChatUtils.chat(sender, "<green><click:suggest_command:\"/cb test \">/cb test [player] [command]</click> <dark_gray>» <white>Checks if a command is blocked for a player.");
+                ChatUtils.chat(sender, "<green><click:suggest_command:\"/cb explain \">/cb explain [--all] [player] [command]</click> <dark_gray>» <white>Shows how each rule catching a command, or every rule with --all, treats it.");
                 ChatUtils.chat(sender, "<green><click:suggest_command:\"/cb version\">/cb version</click> <dark_gray>» <white>Displays the plugin version.");
                 ChatUtils.chat(sender, "<green><click:suggest_command:\"/cb wiki\">/cb wiki</click> <dark_gray>» <white>Displays a link to the plugin's wiki.");
                 return true;
         }
     }
 
+    /**
+     * Runs the /cb stats sub command, which displays rule hit counts and timings.
+     * @param sender Source of the command.
+     * @param args Passed command arguments.
+     */
+    private void stats(@NotNull final CommandSender sender, @NotNull final String[] args) {
+        final StatsManager statsManager = plugin.getStatsManager();
+
+        // Clears the recorded stats.
+        if(args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+            statsManager.reset();
+            ChatUtils.chat(sender, "<green><bold>CommandBlockerPro</bold> <dark_gray>» <green>Stats have been reset.");
+            return;
+        }
+
+        final RuleSet ruleSet = plugin.getRuleManager().getRuleSet();
+        if(!ruleSet.getSettings().isMetrics()) {
+            ChatUtils.chat(sender, "<red><bold>CommandBlockerPro</bold> <dark_gray>» <red>Metrics are disabled. Set \"metrics\" to true in config.yml to record stats.");
+            return;
+        }
+
+        ChatUtils.chat(sender, "<green><bold>CommandBlockerPro Stats");
+
+        // Timings of both listeners.
+        final LatencyHistogram commandTimes = statsManager.getCommandTimes();
+        ChatUtils.chat(sender, "<green>Commands checked <dark_gray>» <white>" + commandTimes.getCount() + " <gray>(p50 " + formatTime(commandTimes.getPercentile(0.5)) + ", p99 " + formatTime(commandTimes.getPercentile(0.99)) + ")");
+        final LatencyHistogram tabListTimes = statsManager.getTabListTimes();
+        ChatUtils.chat(sender, "<green>Tab lists filtered <dark_gray>» <white>" + tabListTimes.getCount() + " <gray>(p50 " + formatTime(tabListTimes.getPercentile(0.5)) + ", p99 " + formatTime(tabListTimes.getPercentile(0.99)) + ")");
+
+        // Cache hit rates of the current rules.
+        ChatUtils.chat(sender, "<green>Match cache <dark_gray>» <white>" + formatHitRate(ruleSet.getMatchCache().getHits(), ruleSet.getMatchCache().getMisses()));
+        ChatUtils.chat(sender, "<green>Tab list cache <dark_gray>» <white>" + formatHitRate(ruleSet.getTabListCache().getHits(), ruleSet.getTabListCache().getMisses()));
+        ChatUtils.chat(sender, "<green>Feedback suppressed <dark_gray>» <white>" + plugin.getFeedbackLimiter().getSuppressed());
+        if(plugin.getAuditLog().isRunning()) {
+            ChatUtils.chat(sender, "<green>Audit log dropped <dark_gray>» <white>" + plugin.getAuditLog().getDropped());
+        }
+
+        // The rules that have blocked and hidden the most commands.
+        final List<StatsManager.RuleStats> topRules = statsManager.getTopRules(5);
+        if(topRules.isEmpty()) {
+            ChatUtils.chat(sender, "<green>Top rules <dark_gray>» <white>None yet.");
+            return;
+        }
+
+        ChatUtils.chat(sender, "<green>Top rules:");
+        for(final StatsManager.RuleStats ruleStats : topRules) {
+            ChatUtils.chat(sender, "<dark_gray>- <white>" + MiniMessage.miniMessage().escapeTags(ruleStats.getName()) + " <dark_gray>» <gray>blocked <white>" + ruleStats.getBlocks() + "<gray>, hidden <white>" + ruleStats.getHides() + "<gray>, caught <white>" + ruleStats.getMatches() + " <gray>(<white>" + ruleStats.getCacheHits() + " <gray>cached)");
+        }
+    }
+
+    /**
+     * Runs the /cb test and /cb explain sub commands, which check how the rules treat a command for a player.
+     * Nothing is blocked, no events are called, and the caches are not used or changed.
+     * /cb explain only shows the rules catching the command, unless --all is used before the player's name.
+     * @param sender Source of the command.
+     * @param args Passed command arguments.
+     * @param explain Whether to show how each rule and filter treats the command.
+     */
+    private void test(@NotNull final CommandSender sender, @NotNull final String[] args, final boolean explain) {
+        // Player names can't start with '-', so the option can't be mistaken for one.
+        final boolean allRules = explain && args.length > 1 && args[1].equalsIgnoreCase(ALL_RULES_OPTION);
+        final int playerArg = allRules ? 2 : 1;
+
+        if(args.length < playerArg + 2) {
+            ChatUtils.chat(sender, "<red><bold>Usage</bold> <dark_gray>» <red>/cb " + args[0].toLowerCase() + (explain ? " [--all]" : "") + " [player] [command]");
+            return;
+        }
+
+        final Player player = plugin.getServer().getPlayerExact(args[playerArg]);
+        if(player == null) {
+            ChatUtils.chat(sender, "<red><bold>CommandBlockerPro</bold> <dark_gray>» <red>That player is not online.");
+            return;
+        }
+
+        final NormalizedCommand command = NormalizedCommand.parse(String.join(" ", Arrays.copyOfRange(args, playerArg + 1, args.length)));
+        final String commandText = MiniMessage.miniMessage().escapeTags(command.getKey(Integer.MAX_VALUE));
+
+        // A new profile is used, so the player's cached profile isn't changed.
+        final RuleSet ruleSet = plugin.getRuleManager().getRuleSet();
+        final BypassProfile profile = new BypassProfile(player, ruleSet);
+        final boolean cached = ruleSet.getMatchCache().contains(ruleSet.getMatchKey(command));
+
+        final long start = System.nanoTime();
+        final BitSet matchingRules = ruleSet.findMatchingRules(command);
+        final long time = System.nanoTime() - start;
+
+        // Sort the rules that catch the command by what they do to it.
+        final List<String> blockingRules = new ArrayList<>();
+        final List<String> hidingRules = new ArrayList<>();
+        final List<String> bypassedRules = new ArrayList<>();
+        for(int ruleId = matchingRules.nextSetBit(0); ruleId >= 0; ruleId = matchingRules.nextSetBit(ruleId + 1)) {
+            final Rule rule = ruleSet.getRule(ruleId);
+            final String name = MiniMessage.miniMessage().escapeTags(rule.getName());
+            if(profile.canBypass(ruleId)) {
+                bypassedRules.add(name);
+            }
+            else if(rule.blocksCommands()) {
+                blockingRules.add(name);
+            }
+            else if(rule.hidesCommands()) {
+                hidingRules.add(name);
+            }
+        }
+
+        ChatUtils.chat(sender, "<green><bold>CommandBlockerPro</bold> <dark_gray>» <green>Testing <white>" + commandText + " <green>for <white>" + player.getName());
+        if(!blockingRules.isEmpty()) {
+            ChatUtils.chat(sender, "<green>Result <dark_gray>» <red>Blocked <gray>by <white>" + String.join("<gray>, <white>", blockingRules));
+        }
+        else if(!hidingRules.isEmpty()) {
+            ChatUtils.chat(sender, "<green>Result <dark_gray>» <yellow>Hidden <gray>by <white>" + String.join("<gray>, <white>", hidingRules));
+        }
+        else {
+            ChatUtils.chat(sender, "<green>Result <dark_gray>» <green>Allowed");
+        }
+
+        if(!bypassedRules.isEmpty()) {
+            ChatUtils.chat(sender, "<green>Bypassed <dark_gray>» <white>" + String.join("<gray>, <white>", bypassedRules));
+        }
+
+        ChatUtils.chat(sender, "<green>Match cache <dark_gray>» <white>" + (cached ? "Cached" : "Not cached") + " <gray>(checked without the cache in " + time + "ns)");
+
+        if(!explain) {
+            return;
+        }
+
+        // Only the rules catching the command are explained, unless every rule was asked for.
+        final BitSet explainedRules;
+        if(allRules) {
+            explainedRules = new BitSet();
+            explainedRules.set(0, ruleSet.getRules().size());
+        }
+        else {
+            explainedRules = matchingRules;
+        }
+
+        if(explainedRules.isEmpty()) {
+            ChatUtils.chat(sender, "<green>Rules <dark_gray>» <white>" + (allRules ? "No rules are loaded." : "No rules catch the command. Use --all to show every rule."));
+            return;
+        }
+
+        // Check the filters of each rule one at a time, showing which ones matched and how long each took.
+        // Regex filters are checked with the configured engine, which is shown since it changes how long they take.
+        final String regexEngine = ruleSet.getSettings().getRegexEngine().name().toLowerCase();
+        for(int ruleId = explainedRules.nextSetBit(0); ruleId >= 0; ruleId = explainedRules.nextSetBit(ruleId + 1)) {
+            final Rule rule = ruleSet.getRule(ruleId);
+            final RuleExplanation explanation = new RuleExplanation(ruleSet, rule, command, matchingRules.get(ruleId), profile.canBypass(ruleId));
+
+            final String state;
+            if(!explanation.isCaught()) {
+                state = "<gray>Not caught" + (explanation.isBypassed() ? ", and bypassed" : "");
+            }
+            else if(explanation.isBypassed()) {
+                state = "<aqua>Caught, but bypassed";
+            }
+            else if(explanation.isBlocking()) {
+                state = "<red>Blocks";
+            }
+            else {
+                state = "<yellow>Hides";
+            }
+
+            ChatUtils.chat(sender, "<white>" + MiniMessage.miniMessage().escapeTags(rule.getName()) + " <gray>(" + rule.getType() + ") <dark_gray>» " + state);
+            for(final RuleExplanation.FilterType type : RuleExplanation.FilterType.values()) {
+                int checked = 0;
+                final StringBuilder matches = new StringBuilder();
+                for(final RuleExplanation.FilterResult result : explanation.getResults()) {
+                    if(result.getType() != type) {
+                        continue;
+                    }
+
+                    checked++;
+                    if(result.isMatched()) {
+                        matches.append("<gray>, matched <white>").append(MiniMessage.miniMessage().escapeTags(result.getFilter())).append(" <gray>(").append(result.getTime()).append("ns)");
+                    }
+                }
+
+                if(checked > 0) {
+                    final String typeName = type == RuleExplanation.FilterType.REGEX ? "regex (" + regexEngine + ")" : type.name().toLowerCase();
+                    ChatUtils.chat(sender, "<dark_gray>  - <gray>" + typeName + ": " + checked + " checked in " + explanation.getTime(type) + "ns" + matches);
+                }
+            }
+        }
+    }
+
+    /**
+     * Formats a duration for display, in the most readable unit.
+     * @param nanos Duration in nanoseconds.
+     * @return Formatted duration.
+     */
+    private static String formatTime(final long nanos) {
+        if(nanos < 1_000) {
+            return nanos + "ns";
+        }
+
+        if(nanos < 1_000_000) {
+            return String.format(Locale.ROOT, "%.1f\u00B5s", nanos / 1_000.0);
+        }
+
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * Formats the hits and misses of a cache for display.
+     * @param hits Number of cache hits.
+     * @param misses Number of cache misses.
+     * @return Formatted hit rate.
+     */
+    private static String formatHitRate(final long hits, final long misses) {
+        final long lookups = hits + misses;
+        final double rate = lookups == 0 ? 0 : hits * 100.0 / lookups;
+        return String.format(Locale.ROOT, "%.1f%% <gray>(%d hits, %d misses)", rate, hits, misses);
+    }
+
     /**
      * Processes command tab completion.
      * @param sender Command sender.
@@ -118,7 +372,49 @@ public class CommandBlockerCMD implements CommandExecutor, TabCompleter {
 
         // Lists all sub commands if the player hasn't picked one yet.
         if(args.length < 2) {
-            return Arrays.asList("help", "reload", "version", "wiki");
+            return Arrays.asList("explain", "help", "reload", "stats", "test", "version", "wiki");
+        }
+
+        final boolean explaining = args[0].equalsIgnoreCase("explain");
+        final boolean testing = args[0].equalsIgnoreCase("test") || explaining;
+
+        // The player and command come one argument later when --all is used with /cb explain.
+        final int playerArg = explaining && args[1].equalsIgnoreCase(ALL_RULES_OPTION) ? 2 : 1;
+
+        // Lists online players for /cb test and /cb explain, along with the --all option of /cb explain.
+        if(args.length == playerArg + 1 && testing) {
+            final List<String> players = new ArrayList<>();
+            if(explaining && playerArg == 1 && ALL_RULES_OPTION.startsWith(args[1].toLowerCase())) {
+                players.add(ALL_RULES_OPTION);
+            }
+
+            for(final Player player : plugin.getServer().getOnlinePlayers()) {
+                if(player.getName().toLowerCase().startsWith(args[playerArg].toLowerCase())) {
+                    players.add(player.getName());
+                }
+            }
+
+            return players;
+        }
+
+        // Lists the commands in each rule's command list for /cb test and /cb explain, without their arguments.
+        if(args.length == playerArg + 2 && testing) {
+            final Set<String> commands = new TreeSet<>();
+            for(final Rule rule : plugin.getRuleManager().getRules()) {
+                for(final String command : rule.getCommands()) {
+                    final String commandName = command.split(" ")[0];
+                    if(commandName.startsWith(args[playerArg + 1].toLowerCase())) {
+                        commands.add(commandName);
+                    }
+                }
+            }
+
+            return new ArrayList<>(commands);
+        }
+
+        // Lists the options of /cb stats.
+        if(args.length == 2 && args[0].equalsIgnoreCase("stats")) {
+            return Collections.singletonList("reset");
         }
 
         // Otherwise, send an empty list.
@@ -24,7 +24,7 @@
  */
 package net.jadedmc.commandblockerpro.commands;
 
-import net.jadedmc.commandblockerpro.utils.ChatUtils;
+import net.jadedmc.commandblockerpro.utils.MessageTemplate;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.defaults.BukkitCommand;
 import org.jetbrains.annotations.NotNull;
@@ -34,18 +34,27 @@ import org.jetbrains.annotations.NotNull;
  * Only function is to display the Rule's block message.
  */
 public class DummyCommand extends BukkitCommand {
-    private final String blockMessage;
+    private volatile MessageTemplate blockMessage;
 
     /**
      * Creates the dummy command.
      * @param name Name of the dummy command.
      * @param blockMessage Block message to be displayed when the dummy command is run.
      */
-    public DummyCommand(@NotNull String name, @NotNull final String blockMessage) {
+    public DummyCommand(@NotNull String name, @NotNull final MessageTemplate blockMessage) {
         super(name);
         this.blockMessage = blockMessage;
     }
 
+    /**
+     * Changes the block message of the dummy command.
+     * Used when the rules are reloaded, so the command doesn't need to be registered again.
+     * @param blockMessage New block message.
+     */
+    public void setBlockMessage(@NotNull final MessageTemplate blockMessage) {
+        this.blockMessage = blockMessage;
+    }
+
     /**
      * Runs when the command is executed.
      * @param commandSender Sender of the command.
@@ -55,9 +64,8 @@ public class DummyCommand extends BukkitCommand {
      */
     @Override
     public boolean execute(@NotNull CommandSender commandSender, @NotNull String s, @NotNull String[] strings) {
-        // Replaces the {command} placeholder with the command that was run (without the leading '/').
-        final String message = blockMessage.replace("{command}", s);
-        ChatUtils.chat(commandSender, message);
+        // Fills in the {command} placeholder with the command that was run (without the leading '/').
+        blockMessage.send(commandSender, s);
         return true;
     }
 }
\ No newline at end of file
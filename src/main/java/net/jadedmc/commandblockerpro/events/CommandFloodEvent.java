@@ -0,0 +1,141 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.events;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * This event is called when a player is caught flooding the server with commands, before they are locked out or kicked.
+ * Cancelling the event lets the player keep using commands.
+ */
+@SuppressWarnings("unused")
+public class CommandFloodEvent extends Event implements Cancellable {
+    private static final HandlerList HANDLERS = new HandlerList();
+    private final Player player;
+    private final FloodType floodType;
+    private long lockoutTime;
+    private boolean kick;
+    private boolean cancelled = false;
+
+    /**
+     * Creates the event.
+     * @param player Player who is flooding commands.
+     * @param floodType The kind of flood that was detected.
+     * @param lockoutTime How long the player will be locked out of commands for, in milliseconds.
+     * @param kick Whether the player will be kicked instead of locked out.
+     */
+    public CommandFloodEvent(final Player player, final FloodType floodType, final long lockoutTime, final boolean kick) {
+        this.player = player;
+        this.floodType = floodType;
+        this.lockoutTime = lockoutTime;
+        this.kick = kick;
+    }
+
+    /**
+     * Get the player who is flooding commands.
+     * @return Player who is flooding commands.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Get the kind of flood that was detected.
+     * @return Flood Type.
+     */
+    public FloodType getFloodType() {
+        return floodType;
+    }
+
+    /**
+     * Get how long the player will be locked out of commands for.
+     * @return Lockout time in milliseconds.
+     */
+    public long getLockoutTime() {
+        return lockoutTime;
+    }
+
+    /**
+     * Change how long the player will be locked out of commands for.
+     * @param lockoutTime Lockout time in milliseconds.
+     */
+    public void setLockoutTime(final long lockoutTime) {
+        this.lockoutTime = lockoutTime;
+    }
+
+    /**
+     * Get if the player will be kicked instead of locked out.
+     * @return Whether the player will be kicked.
+     */
+    public boolean isKick() {
+        return kick;
+    }
+
+    /**
+     * Set if the player should be kicked instead of locked out.
+     * @param kick Whether the player should be kicked.
+     */
+    public void setKick(final boolean kick) {
+        this.kick = kick;
+    }
+
+    /**
+     * Get all event handlers.
+     * @return Event handlers.
+     */
+    public @NonNull HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    /**
+     * Get all event handlers.
+     * @return Event handlers.
+     */
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+
+    /**
+     * Check if the event is cancelled.
+     * @return Whether the event is cancelled.
+     */
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Set if the event should be cancelled.
+     * @param cancelled If the event should be cancelled.
+     */
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+}
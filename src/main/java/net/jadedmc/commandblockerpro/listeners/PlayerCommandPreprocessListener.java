@@ -25,14 +25,24 @@
 package net.jadedmc.commandblockerpro.listeners;
 
 import net.jadedmc.commandblockerpro.CommandBlockerProPlugin;
+import net.jadedmc.commandblockerpro.FloodDetector;
+import net.jadedmc.commandblockerpro.GlobalSettings;
+import net.jadedmc.commandblockerpro.StatsManager;
 import net.jadedmc.commandblockerpro.events.CommandBlockEvent;
+import net.jadedmc.commandblockerpro.events.FloodType;
+import net.jadedmc.commandblockerpro.rules.BypassProfile;
+import net.jadedmc.commandblockerpro.rules.NormalizedCommand;
 import net.jadedmc.commandblockerpro.rules.Rule;
-import net.jadedmc.commandblockerpro.utils.ChatUtils;
+import net.jadedmc.commandblockerpro.rules.RuleSet;
+import net.jadedmc.commandblockerpro.utils.MessageTemplate;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
 
 /**
  * Listens to the PlaceCommandPreprocessEvent, which runs when a player goes to send a command.
@@ -55,36 +65,140 @@ public class PlayerCommandPreprocessListener implements Listener {
      */
     @EventHandler
     public void onCommandSend(@NotNull final PlayerCommandPreprocessEvent event) {
+        // Skip timing the check entirely if metrics are disabled.
+        if(!plugin.getRuleManager().getRuleSet().getSettings().isMetrics()) {
+            checkCommand(event, null);
+            return;
+        }
+
+        final StatsManager statsManager = plugin.getStatsManager();
+        final long start = System.nanoTime();
+        checkCommand(event, statsManager);
+        statsManager.recordCommandTime(System.nanoTime() - start);
+    }
+
+    /**
+     * Checks if a command should be blocked, and blocks it if it should.
+     * @param event PlaceCommandPreprocessEvent.
+     * @param statsManager Stats manager to record rule hits with, or null if metrics are disabled.
+     */
+    private void checkCommand(@NotNull final PlayerCommandPreprocessEvent event, @Nullable final StatsManager statsManager) {
         final Player player = event.getPlayer();
-        final String command = event.getMessage().split(" ")[0];
-
-        // Loop through each rule configured, blocking the command if the rule catches it.
-        for(final Rule rule : plugin.getRuleManager().getRules()) {
-            if(rule.shouldBlock(player, command)) {
-                // Calls the CommandBlockEvent.
-                final CommandBlockEvent commandBlockEvent = new CommandBlockEvent(player, command, rule);
-                plugin.getServer().getPluginManager().callEvent(commandBlockEvent);
-
-                // If the CommandBlockEvent is cancelled, allow the command to be processed.
-                if(commandBlockEvent.isCancelled()) {
-                    return;
-                }
-
-                // Otherwise, block the command.
-                event.setCancelled(true);
-
-                // Display the block message is the rule has one.
-                if(rule.hasBlockMessage()) {
-                    // Replaces the {command} placeholder with the command that was blocked (without the leading '/').
-                    final String blockMessage = rule.getBlockMessage().replace("{command}", command.replaceFirst("^/", ""));
-                    ChatUtils.chat(player, blockMessage);
-                }
-
-                // Play the block sound if the rule has one.
-                if(rule.hasBlockSound()) {
-                    player.playSound(player.getLocation(), rule.getBlockSound(), rule.getBlockSoundVolume(), rule.getBlockSoundPitch());
-                }
+
+        // Players locked out for flooding commands have every command blocked, without checking any rules.
+        final FloodDetector floodDetector = plugin.getFloodDetector();
+        if(floodDetector.isLockedOut(player)) {
+            event.setCancelled(true);
+
+            // Locked out commands are only parsed and checked against the rules if they need to be audited.
+            if(plugin.getAuditLog().isRunning()) {
+                auditFlood(event, NormalizedCommand.parse(event.getMessage()), plugin.getProfileManager().getProfile(player));
             }
+            return;
         }
+
+        final NormalizedCommand command = NormalizedCommand.parse(event.getMessage());
+
+        // The profile's rules are used for the whole check, so a reload partway through can't mix old and new rules.
+        final BypassProfile profile = plugin.getProfileManager().getProfile(player);
+        final RuleSet ruleSet = profile.getRuleSet();
+        plugin.getTrafficRecorder().recordCommand(profile, command);
+
+        // Check if the player is flooding commands of any kind.
+        final FloodType commandFlood = floodDetector.recordCommand(player, ruleSet.getSettings());
+        if(commandFlood != null && floodDetector.punish(player, commandFlood, ruleSet.getSettings())) {
+            event.setCancelled(true);
+            auditFlood(event, command, profile);
+            return;
+        }
+
+        // Get every rule that catches the command, which is usually cached, then keep the ones that block it for the player.
+        final BitSet matchingRules = ruleSet.getMatchingRules(command, statsManager);
+        final BitSet blockingRules = profile.filter(ruleSet.getBlockingRules(matchingRules));
+        if(blockingRules.isEmpty()) {
+            return;
+        }
+
+        // Loop through each rule that blocks the command for the player.
+        boolean blocked = false;
+        boolean sendFeedback = true;
+        for(int ruleId = blockingRules.nextSetBit(0); ruleId >= 0; ruleId = blockingRules.nextSetBit(ruleId + 1)) {
+            final Rule rule = ruleSet.getRule(ruleId);
+
+            // Calls the CommandBlockEvent.
+            final CommandBlockEvent commandBlockEvent = new CommandBlockEvent(player, command.getKey(), rule);
+            plugin.getServer().getPluginManager().callEvent(commandBlockEvent);
+
+            // If the CommandBlockEvent is cancelled, allow the command to be processed.
+            if(commandBlockEvent.isCancelled()) {
+                return;
+            }
+
+            // Otherwise, block the command.
+            event.setCancelled(true);
+            plugin.getAuditLog().record(player, event.getMessage(), rule);
+            if(statsManager != null) {
+                statsManager.recordBlock(rule);
+            }
+
+            // Only the first rule to block the command counts toward flood protection and the feedback limit.
+            if(!blocked) {
+                blocked = true;
+                sendFeedback = recordBlocked(player, ruleSet.getSettings());
+            }
+
+            if(!sendFeedback) {
+                continue;
+            }
+
+            // Display the block message is the rule has one.
+            // The message is parsed ahead of time, so only the {command} placeholder is filled in (without the leading '/').
+            final MessageTemplate blockMessage = ruleSet.getBlockMessage(rule);
+            if(blockMessage != null) {
+                blockMessage.send(player, command.getName());
+            }
+
+            // Play the block sound if the rule has one.
+            if(rule.hasBlockSound()) {
+                player.playSound(player.getLocation(), rule.getBlockSound(), rule.getBlockSoundVolume(), rule.getBlockSoundPitch());
+            }
+        }
+    }
+
+    /**
+     * Logs a command cancelled by flood protection in the audit log, once for each rule that would have blocked it.
+     * Commands that no rule would block are not logged, the same as when the player isn't flooding.
+     * @param event PlaceCommandPreprocessEvent.
+     * @param command Normalized command.
+     * @param profile Bypass profile of the player.
+     */
+    private void auditFlood(@NotNull final PlayerCommandPreprocessEvent event, @NotNull final NormalizedCommand command, @NotNull final BypassProfile profile) {
+        if(!plugin.getAuditLog().isRunning()) {
+            return;
+        }
+
+        final RuleSet ruleSet = profile.getRuleSet();
+        final BitSet blockingRules = profile.filter(ruleSet.getBlockingRules(command));
+        for(int ruleId = blockingRules.nextSetBit(0); ruleId >= 0; ruleId = blockingRules.nextSetBit(ruleId + 1)) {
+            plugin.getAuditLog().record(event.getPlayer(), event.getMessage(), ruleSet.getRule(ruleId));
+        }
+    }
+
+    /**
+     * Records a blocked command for flood protection and the feedback limit.
+     * @param player Player whose command was blocked.
+     * @param settings Settings containing the flood and feedback limits.
+     * @return Whether the player should be sent block messages and sounds.
+     */
+    private boolean recordBlocked(@NotNull final Player player, @NotNull final GlobalSettings settings) {
+        // Players caught flooding blocked commands are sent the flood message instead.
+        final FloodDetector floodDetector = plugin.getFloodDetector();
+        final FloodType blockedFlood = floodDetector.recordBlocked(player, settings);
+        if(blockedFlood != null && floodDetector.punish(player, blockedFlood, settings)) {
+            return false;
+        }
+
+        // Players spamming blocked commands still have them blocked, but are only told about some of them.
+        return plugin.getFeedbackLimiter().tryAcquire(player, settings);
     }
 }
\ No newline at end of file
@@ -25,16 +25,15 @@
 package net.jadedmc.commandblockerpro.listeners;
 
 import net.jadedmc.commandblockerpro.CommandBlockerProPlugin;
-import net.jadedmc.commandblockerpro.rules.Rule;
+import net.jadedmc.commandblockerpro.StatsManager;
+import net.jadedmc.commandblockerpro.rules.BypassProfile;
+import net.jadedmc.commandblockerpro.rules.HiddenCommands;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerCommandSendEvent;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Listens to the PlayerCommandSendEvent, which runs every time the server sends the command list to the player.
  *
@@ -57,17 +56,24 @@ public class PlayerCommandSendListener implements Listener {
     @EventHandler
     public void onCommandSend(@NotNull final PlayerCommandSendEvent event) {
         final Player player = event.getPlayer();
-        final List<String> tablist = new ArrayList<>(event.getCommands());
 
-        // Loops through all the rules.
-        for(final Rule rule : plugin.getRuleManager().getRules()) {
+        // Skip timing the filter entirely if metrics are disabled.
+        final boolean metrics = plugin.getRuleManager().getRuleSet().getSettings().isMetrics();
+        final long start = metrics ? System.nanoTime() : 0;
+
+        // The server resends the command list when a player's permissions change, so their profile is updated here.
+        final BypassProfile profile = plugin.getProfileManager().refresh(player);
+        plugin.getTrafficRecorder().recordTabList(profile, event.getCommands().size());
+
+        // Removes every command hidden from the player at once.
+        // Players with the same permissions usually share the same result, which is cached.
+        final HiddenCommands hiddenCommands = profile.getRuleSet().getHiddenCommands(profile, event.getCommands());
+        event.getCommands().removeAll(hiddenCommands.getCommands());
 
-            // Removes commands that are hidden by that rule.
-            for(final String command : tablist) {
-                if(rule.shouldHide(player, "/" + command)) {
-                    event.getCommands().remove(command);
-                }
-            }
+        if(metrics) {
+            final StatsManager statsManager = plugin.getStatsManager();
+            statsManager.recordHides(profile.getRuleSet(), hiddenCommands);
+            statsManager.recordTabListTime(System.nanoTime() - start);
         }
     }
 }
\ No newline at end of file
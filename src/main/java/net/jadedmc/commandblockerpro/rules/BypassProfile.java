@@ -0,0 +1,122 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.BitSet;
+import java.util.function.Predicate;
+
+/**
+ * Stores which rules a player can bypass, as a set of rule ids.
+ * Computed once from the player's permissions, so commands can be checked without any permission lookups.
+ * Rule ids are only meaningful within the rule set the profile was created from.
+ */
+public class BypassProfile {
+    private final RuleSet ruleSet;
+    private final BitSet bypassedRules = new BitSet();
+
+    /**
+     * Creates the profile by checking a player's permissions against every rule.
+     * @param player Player to create the profile for.
+     * @param ruleSet Rules to check.
+     */
+    public BypassProfile(@NotNull final Player player, @NotNull final RuleSet ruleSet) {
+        this(player::hasPermission, ruleSet);
+    }
+
+    /**
+     * Creates the profile by checking a set of permissions against every rule.
+     * Used to check rules without a player, such as when replaying recorded commands.
+     * @param permissionCheck Checks if the permission holder has a permission.
+     * @param ruleSet Rules to check.
+     */
+    public BypassProfile(@NotNull final Predicate<String> permissionCheck, @NotNull final RuleSet ruleSet) {
+        this.ruleSet = ruleSet;
+
+        for(final Rule rule : ruleSet.getRules()) {
+            if(rule.canBypass(permissionCheck)) {
+                bypassedRules.set(rule.getId());
+            }
+        }
+    }
+
+    /**
+     * Get the rule set the profile was created from.
+     * Commands checked with this profile should be checked against these rules.
+     * @return Rule Set of the profile.
+     */
+    public RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    /**
+     * Get if the player can bypass a rule.
+     * @param ruleId Id of the rule.
+     * @return Whether the player can bypass the rule.
+     */
+    public boolean canBypass(final int ruleId) {
+        return bypassedRules.get(ruleId);
+    }
+
+    /**
+     * Removes every rule the player can bypass from a set of rule ids.
+     * @param ruleIds Rule ids to filter, which is modified.
+     * @return The same set, only containing rules that apply to the player.
+     */
+    public BitSet filter(@NotNull final BitSet ruleIds) {
+        ruleIds.andNot(bypassedRules);
+        return ruleIds;
+    }
+
+    /**
+     * Profiles are equal when they bypass the same rules of the same rule set, so players with the same permissions can share results.
+     * @param object Object to compare to.
+     * @return Whether the object is a profile bypassing the same rules.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if(this == object) {
+            return true;
+        }
+
+        if(!(object instanceof BypassProfile)) {
+            return false;
+        }
+
+        final BypassProfile other = (BypassProfile) object;
+        return ruleSet == other.ruleSet && bypassedRules.equals(other.bypassedRules);
+    }
+
+    /**
+     * Get the hash code of the profile, based on the rules it bypasses.
+     * @return Hash code.
+     */
+    @Override
+    public int hashCode() {
+        return bypassedRules.hashCode();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Stores the result of checking a single command against every loaded rule's filters at once.
+ * Rules read their results from here instead of checking their own filters one by one.
+ * Rules that were not part of the check fall back to checking their own filters.
+ */
+public class CommandMatch {
+    private final NormalizedCommand command;
+    private final List<Rule> rules;
+    private final BitSet listedRules;
+    private final int[] containsHits;
+    private final boolean[] regexHits;
+
+    /**
+     * Creates a match that does not cover any rules.
+     * Every rule checks its own filters.
+     * @param command Command being checked.
+     */
+    public CommandMatch(@NotNull final NormalizedCommand command) {
+        this(command, Collections.emptyList(), new BitSet(), new int[0], new boolean[0]);
+    }
+
+    /**
+     * Creates the match.
+     * @param command Command being checked.
+     * @param rules Rules covered by the match, indexed by rule id.
+     * @param listedRules Ids of the rules that list the command in their command list.
+     * @param containsHits The number of distinct contained strings found for each rule, indexed by rule id.
+     * @param regexHits Whether any of each rule's regex filters found a match, indexed by rule id.
+     */
+    public CommandMatch(@NotNull final NormalizedCommand command, @NotNull final List<Rule> rules, @NotNull final BitSet listedRules, final int[] containsHits, final boolean[] regexHits) {
+        this.command = command;
+        this.rules = rules;
+        this.listedRules = listedRules;
+        this.containsHits = containsHits;
+        this.regexHits = regexHits;
+    }
+
+    /**
+     * Get the command that was checked.
+     * @return Normalized command.
+     */
+    public NormalizedCommand getCommand() {
+        return command;
+    }
+
+    /**
+     * Get if a rule lists the command in its command list.
+     * Commands with a namespace are also listed by rules listing the command without it.
+     * @param rule Rule to check.
+     * @return Whether the rule lists the command.
+     */
+    public boolean isListed(@NotNull final Rule rule) {
+        if(!covers(rule)) {
+            for(final String listedCommand : rule.getCommands()) {
+                if(CommandTrie.matches(listedCommand, command)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        return listedRules.get(rule.getId());
+    }
+
+    /**
+     * Get if the command contains at least one of a rule's contained strings.
+     * @param rule Rule to check.
+     * @return Whether any of the rule's contained strings were found.
+     */
+    public boolean containsAny(@NotNull final Rule rule) {
+        if(!covers(rule)) {
+            for(final String containedString : rule.getContains()) {
+                if(command.getKey().contains(containedString)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        return containsHits[rule.getId()] > 0;
+    }
+
+    /**
+     * Get if the command contains every one of a rule's contained strings.
+     * @param rule Rule to check.
+     * @return Whether all the rule's contained strings were found.
+     */
+    public boolean containsAll(@NotNull final Rule rule) {
+        if(!covers(rule)) {
+            for(final String containedString : rule.getContains()) {
+                if(!command.getKey().contains(containedString)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        return containsHits[rule.getId()] == rule.getContains().size();
+    }
+
+    /**
+     * Get if any of a rule's regex filters found a match in the command.
+     * @param rule Rule to check.
+     * @return Whether any of the rule's regex filters matched.
+     */
+    public boolean matchesRegex(@NotNull final Rule rule) {
+        if(!covers(rule)) {
+            for(final Pattern pattern : rule.getRegex()) {
+                if(pattern.matcher(command.getKey()).find()) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        return regexHits[rule.getId()];
+    }
+
+    /**
+     * Get if a rule was part of the check.
+     * @param rule Rule to check.
+     * @return Whether the match has results for the rule.
+     */
+    private boolean covers(@NotNull final Rule rule) {
+        final int id = rule.getId();
+        return id >= 0 && id < rules.size() && rules.get(id) == rule;
+    }
+}
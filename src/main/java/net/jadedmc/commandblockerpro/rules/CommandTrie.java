@@ -0,0 +1,285 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A trie built from the command lists of every loaded rule, with one level for each word of a listed command.
+ * Listed commands can include arguments, where "*" matches any single argument, such as "/lp user * permission set".
+ * A listed command also catches every command that starts with it, so "/gamemode creative" catches "/gamemode creative bob",
+ * and a listed command without arguments, such as "/pl", catches the command no matter its arguments.
+ * Commands are checked with a single walk through the trie, so the cost depends on the number of words
+ * in the command instead of the number of listed commands.
+ */
+public class CommandTrie {
+    private static final String WILDCARD = "*";
+
+    private final Map<String, Node> roots = new HashMap<>();
+    private final int maxDepth;
+
+    /**
+     * Builds the trie from the command lists of a list of rules.
+     * Each rule is identified by its position in the list.
+     * @param rules Rules to build the trie from.
+     */
+    public CommandTrie(@NotNull final List<Rule> rules) {
+        int deepest = 1;
+        for(int ruleId = 0; ruleId < rules.size(); ruleId++) {
+            for(final String listedCommand : rules.get(ruleId).getCommands()) {
+                deepest = Math.max(deepest, add(listedCommand, ruleId));
+            }
+        }
+
+        this.maxDepth = deepest;
+    }
+
+    /**
+     * Builds the trie from a list of listed commands, as if they all belonged to a single rule with id 0.
+     * Used to work out which words of a command a recording kept, such as in the TrafficReplay tool.
+     * @param listedCommands Normalized listed commands, with words separated by single spaces.
+     */
+    public CommandTrie(@NotNull final Collection<String> listedCommands) {
+        int deepest = 1;
+        for(final String listedCommand : listedCommands) {
+            deepest = Math.max(deepest, add(listedCommand, 0));
+        }
+
+        this.maxDepth = deepest;
+    }
+
+    /**
+     * Adds a listed command to the trie.
+     * @param listedCommand Normalized listed command, with words separated by single spaces.
+     * @param ruleId Id of the rule listing the command.
+     * @return Number of words in the listed command.
+     */
+    private int add(@NotNull final String listedCommand, final int ruleId) {
+        final String[] words = listedCommand.split(" ");
+
+        // The first word is always the command itself, which is never a wildcard.
+        Node node = roots.computeIfAbsent(words[0], key -> new Node());
+        for(int depth = 1; depth < words.length; depth++) {
+            node = node.getOrCreateChild(words[depth]);
+        }
+
+        if(node.rules == null) {
+            node.rules = new BitSet();
+        }
+        node.rules.set(ruleId);
+        return words.length;
+    }
+
+    /**
+     * Get the most words any listed command has, counting the command itself.
+     * @return 1 if no listed command has arguments.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Gets the ids of every rule that lists a command.
+     * Commands with a namespace are also listed by rules listing the command without it.
+     * @param command Normalized command to check.
+     * @return Ids of the rules listing the command.
+     */
+    public BitSet match(@NotNull final NormalizedCommand command) {
+        final BitSet listedRules = new BitSet();
+        walk(command, listedRules);
+        return listedRules;
+    }
+
+    /**
+     * Gets how many words of a command affect which rules list it, counting the command itself.
+     * Commands that share those words are always listed by the same rules.
+     * @param command Normalized command to check.
+     * @return Number of words that affect the result, which is at least 1.
+     */
+    public int getDepth(@NotNull final NormalizedCommand command) {
+        if(maxDepth == 1) {
+            return 1;
+        }
+
+        return walk(command, null);
+    }
+
+    /**
+     * Walks through the trie one word of the command at a time, following both matching words and wildcards.
+     * @param command Normalized command to check.
+     * @param listedRules Set to add the ids of rules listing the command to, or null to only find the depth.
+     * @return Number of words that were looked at, counting the command itself.
+     */
+    private int walk(@NotNull final NormalizedCommand command, @Nullable final BitSet listedRules) {
+        List<Node> nodes = new ArrayList<>(2);
+        addNode(nodes, roots.get(command.getKey()));
+        if(command.hasNamespace()) {
+            addNode(nodes, roots.get(command.getLabelKey()));
+        }
+
+        // Only split as many arguments as the deepest listed command can look at.
+        final List<String> arguments = maxDepth > 1 ? command.getArguments(maxDepth - 1) : Collections.<String>emptyList();
+        int depth = 1;
+        while(!nodes.isEmpty()) {
+            boolean hasChildren = false;
+            for(final Node node : nodes) {
+                if(listedRules != null && node.rules != null) {
+                    listedRules.or(node.rules);
+                }
+                hasChildren |= node.children != null || node.wildcard != null;
+            }
+
+            // Stop once no listed command is deeper, or the command has no more arguments.
+            if(!hasChildren || depth > arguments.size()) {
+                break;
+            }
+
+            final String argument = arguments.get(depth - 1);
+            final List<Node> nextNodes = new ArrayList<>(nodes.size());
+            for(final Node node : nodes) {
+                if(node.children != null) {
+                    addNode(nextNodes, node.children.get(argument));
+                }
+                addNode(nextNodes, node.wildcard);
+            }
+
+            nodes = nextNodes;
+            depth++;
+        }
+
+        return depth;
+    }
+
+    /**
+     * Checks if every command caught by a listed command keeps all the words it lists in its match key.
+     * A match key only keeps the words this trie looks at, so a recording made with this trie can only be checked
+     * against listed commands that pass. Wildcards in the listed command are only followed through wildcards here,
+     * since the recorded argument could be anything.
+     * @param listedCommand Normalized listed command, with words separated by single spaces.
+     * @return Whether the words of every caught command are kept.
+     */
+    public boolean keepsWords(@NotNull final String listedCommand) {
+        final String[] words = listedCommand.split(" ");
+        List<Node> nodes = new ArrayList<>(1);
+        addNode(nodes, roots.get(words[0]));
+
+        for(int depth = 1; depth < words.length; depth++) {
+            // The next word is only looked at if a deeper listed command could still match.
+            boolean hasChildren = false;
+            for(final Node node : nodes) {
+                hasChildren |= node.children != null || node.wildcard != null;
+            }
+            if(!hasChildren) {
+                return false;
+            }
+
+            final List<Node> nextNodes = new ArrayList<>(nodes.size());
+            for(final Node node : nodes) {
+                if(node.children != null && !words[depth].equals(WILDCARD)) {
+                    addNode(nextNodes, node.children.get(words[depth]));
+                }
+                addNode(nextNodes, node.wildcard);
+            }
+            nodes = nextNodes;
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds a node to a list, if it exists.
+     * @param nodes List to add the node to.
+     * @param node Node to add, or null.
+     */
+    private static void addNode(@NotNull final List<Node> nodes, @Nullable final Node node) {
+        if(node != null) {
+            nodes.add(node);
+        }
+    }
+
+    /**
+     * Checks if a single listed command catches a command, without building a trie.
+     * Used to check rules one filter at a time, such as with /cb explain.
+     * @param listedCommand Normalized listed command, with words separated by single spaces.
+     * @param command Normalized command to check.
+     * @return Whether the listed command catches the command.
+     */
+    public static boolean matches(@NotNull final String listedCommand, @NotNull final NormalizedCommand command) {
+        final String[] words = listedCommand.split(" ");
+        if(!words[0].equals(command.getKey()) && !words[0].equals(command.getLabelKey())) {
+            return false;
+        }
+
+        final List<String> arguments = command.getArguments(words.length - 1);
+        if(arguments.size() < words.length - 1) {
+            return false;
+        }
+
+        for(int depth = 1; depth < words.length; depth++) {
+            if(!words[depth].equals(WILDCARD) && !words[depth].equals(arguments.get(depth - 1))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * A single word of one or more listed commands.
+     */
+    private static final class Node {
+        private Map<String, Node> children = null;
+        private Node wildcard = null;
+        private BitSet rules = null;
+
+        /**
+         * Gets the node for the next word of a listed command, creating it if needed.
+         * @param word Next word, or "*" for any argument.
+         * @return Node of the word.
+         */
+        private Node getOrCreateChild(@NotNull final String word) {
+            if(word.equals(WILDCARD)) {
+                if(wildcard == null) {
+                    wildcard = new Node();
+                }
+                return wildcard;
+            }
+
+            if(children == null) {
+                children = new HashMap<>();
+            }
+            return children.computeIfAbsent(word, key -> new Node());
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * An Aho-Corasick automaton built from the "contains" filters of every loaded rule.
+ * Scans a command once, reporting how many of each rule's contained strings were found,
+ * so the cost depends on the length of the command instead of the number of filters.
+ */
+public class ContainsAutomaton {
+    private final int ruleCount;
+    private final int patternCount;
+    private final int[][] patternRules;
+    private final char[][] transitionKeys;
+    private final int[][] transitionStates;
+    private final int[] failures;
+    private final int[][] outputs;
+
+    /**
+     * Builds the automaton from the "contains" filters of a list of rules.
+     * Each rule is identified by its position in the list.
+     * @param rules Rules to build the automaton from.
+     */
+    public ContainsAutomaton(@NotNull final List<Rule> rules) {
+        this.ruleCount = rules.size();
+
+        // Give each distinct string an id, keeping track of which rules use it.
+        final Map<String, List<Integer>> rulesByPattern = new HashMap<>();
+        final List<String> patterns = new ArrayList<>();
+        for(int ruleId = 0; ruleId < rules.size(); ruleId++) {
+            for(final String containedString : rules.get(ruleId).getContains()) {
+                List<Integer> patternRuleIds = rulesByPattern.get(containedString);
+                if(patternRuleIds == null) {
+                    patternRuleIds = new ArrayList<>();
+                    rulesByPattern.put(containedString, patternRuleIds);
+                    patterns.add(containedString);
+                }
+                patternRuleIds.add(ruleId);
+            }
+        }
+
+        this.patternCount = patterns.size();
+        this.patternRules = new int[patternCount][];
+        for(int pattern = 0; pattern < patternCount; pattern++) {
+            patternRules[pattern] = rulesByPattern.get(patterns.get(pattern)).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // Build the trie of every pattern.
+        final List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        final List<List<Integer>> trieOutputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        trieOutputs.add(new ArrayList<>());
+
+        for(int pattern = 0; pattern < patternCount; pattern++) {
+            int state = 0;
+            for(final char character : patterns.get(pattern).toCharArray()) {
+                Integer next = trie.get(state).get(character);
+                if(next == null) {
+                    next = trie.size();
+                    trie.get(state).put(character, next);
+                    trie.add(new TreeMap<>());
+                    trieOutputs.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            trieOutputs.get(state).add(pattern);
+        }
+
+        // Flatten the trie into sorted arrays for quick lookups.
+        final int stateCount = trie.size();
+        this.transitionKeys = new char[stateCount][];
+        this.transitionStates = new int[stateCount][];
+        for(int state = 0; state < stateCount; state++) {
+            final TreeMap<Character, Integer> children = trie.get(state);
+            transitionKeys[state] = new char[children.size()];
+            transitionStates[state] = new int[children.size()];
+
+            int index = 0;
+            for(final Map.Entry<Character, Integer> child : children.entrySet()) {
+                transitionKeys[state][index] = child.getKey();
+                transitionStates[state][index] = child.getValue();
+                index++;
+            }
+        }
+
+        // Link each state to its longest proper suffix in the trie, merging outputs along the way.
+        this.failures = new int[stateCount];
+        this.outputs = new int[stateCount][];
+        outputs[0] = toArray(trieOutputs.get(0));
+
+        final Queue<Integer> queue = new ArrayDeque<>();
+        for(final int child : transitionStates[0]) {
+            failures[child] = 0;
+            queue.add(child);
+        }
+
+        while(!queue.isEmpty()) {
+            final int state = queue.poll();
+
+            // Outputs of a state include every pattern ending at its failure state.
+            final List<Integer> stateOutputs = new ArrayList<>(trieOutputs.get(state));
+            for(final int pattern : outputs[failures[state]]) {
+                stateOutputs.add(pattern);
+            }
+            outputs[state] = toArray(stateOutputs);
+
+            for(int index = 0; index < transitionKeys[state].length; index++) {
+                final char character = transitionKeys[state][index];
+                final int child = transitionStates[state][index];
+
+                int failure = failures[state];
+                while(failure != 0 && transition(failure, character) < 0) {
+                    failure = failures[failure];
+                }
+
+                final int target = transition(failure, character);
+                failures[child] = target < 0 ? 0 : target;
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Scans a command for every contained string.
+     * The command should already be normalized, as the filters are.
+     * @param command Command to scan.
+     * @return The number of distinct contained strings found for each rule, indexed by rule id.
+     */
+    public int[] match(@NotNull final String command) {
+        final int[] hits = new int[ruleCount];
+        if(patternCount == 0) {
+            return hits;
+        }
+
+        final boolean[] found = new boolean[patternCount];
+        collect(0, found, hits);
+
+        int state = 0;
+        for(int index = 0; index < command.length(); index++) {
+            final char character = command.charAt(index);
+
+            // Fall back to shorter suffixes until the character can be matched.
+            int next = transition(state, character);
+            while(next < 0 && state != 0) {
+                state = failures[state];
+                next = transition(state, character);
+            }
+
+            state = next < 0 ? 0 : next;
+            collect(state, found, hits);
+        }
+
+        return hits;
+    }
+
+    /**
+     * Counts every pattern ending at a state that has not been found yet.
+     * @param state State that was reached.
+     * @param found Patterns that have already been found.
+     * @param hits Number of patterns found per rule.
+     */
+    private void collect(final int state, final boolean[] found, final int[] hits) {
+        for(final int pattern : outputs[state]) {
+            if(found[pattern]) {
+                continue;
+            }
+
+            found[pattern] = true;
+            for(final int ruleId : patternRules[pattern]) {
+                hits[ruleId]++;
+            }
+        }
+    }
+
+    /**
+     * Finds the child of a state for a given character.
+     * @param state State to move from.
+     * @param character Character to move with.
+     * @return The child state, or -1 if there isn't one.
+     */
+    private int transition(final int state, final char character) {
+        final int index = Arrays.binarySearch(transitionKeys[state], character);
+        return index < 0 ? -1 : transitionStates[state][index];
+    }
+
+    /**
+     * Converts a list of pattern ids into an array.
+     * @param list List of pattern ids.
+     * @return Array of pattern ids.
+     */
+    private static int[] toArray(@NotNull final List<Integer> list) {
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The commands hidden from a player's tab list, along with how many of them each rule hides.
+ * Immutable, since it is shared through the TabListCache.
+ */
+public class HiddenCommands {
+    private final Set<String> commands;
+    private final int[] hideCounts;
+
+    /**
+     * Creates the result.
+     * @param commands Commands to hide, which must not be modified afterward.
+     * @param hideCounts Number of commands hidden by each rule, indexed by rule id, which must not be modified afterward.
+     */
+    public HiddenCommands(@NotNull final Set<String> commands, final int @NotNull [] hideCounts) {
+        this.commands = Collections.unmodifiableSet(commands);
+        this.hideCounts = hideCounts;
+    }
+
+    /**
+     * Get the commands to hide.
+     * @return Unmodifiable set of hidden commands.
+     */
+    public Set<String> getCommands() {
+        return commands;
+    }
+
+    /**
+     * Get the number of commands a rule hides.
+     * @param ruleId Id of the rule.
+     * @return Number of hidden commands.
+     */
+    public int getHideCount(final int ruleId) {
+        return ruleId < hideCounts.length ? hideCounts[ruleId] : 0;
+    }
+}
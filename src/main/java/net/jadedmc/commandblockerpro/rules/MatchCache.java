@@ -0,0 +1,151 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe, least recently used cache of which rules catch a command.
+ * Whether a rule catches a command does not depend on the player, so results are shared by everyone.
+ */
+public class MatchCache {
+    private final Map<String, BitSet> cache;
+    private final boolean enabled;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates the cache.
+     * @param maxSize Maximum number of commands to remember. 0 disables the cache.
+     */
+    public MatchCache(final int maxSize) {
+        this.enabled = maxSize > 0;
+        this.cache = new LinkedHashMap<String, BitSet>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, BitSet> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get the rules that catch a command, if they have been cached.
+     * The returned BitSet is shared, and must not be modified.
+     * @param key Normalized command key.
+     * @return Ids of the rules catching the command, or null if not cached.
+     */
+    @Nullable
+    public BitSet get(@NotNull final String key) {
+        // A disabled cache never takes the lock, so threads checking commands at once don't wait on each other.
+        if(!enabled) {
+            return null;
+        }
+
+        final BitSet matchingRules;
+        synchronized (cache) {
+            matchingRules = cache.get(key);
+        }
+
+        if(matchingRules == null) {
+            misses.increment();
+        }
+        else {
+            hits.increment();
+        }
+
+        return matchingRules;
+    }
+
+    /**
+     * Get if a command has been cached, without counting it as a hit or miss, or changing its place in the cache.
+     * @param key Normalized command key.
+     * @return Whether the command is cached.
+     */
+    public boolean contains(@NotNull final String key) {
+        if(!enabled) {
+            return false;
+        }
+
+        synchronized (cache) {
+            return cache.containsKey(key);
+        }
+    }
+
+    /**
+     * Caches the rules that catch a command.
+     * @param key Normalized command key.
+     * @param matchingRules Ids of the rules catching the command.
+     */
+    public void put(@NotNull final String key, @NotNull final BitSet matchingRules) {
+        if(!enabled) {
+            return;
+        }
+
+        synchronized (cache) {
+            cache.put(key, matchingRules);
+        }
+    }
+
+    /**
+     * Removes every cached command.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Get the number of lookups that found a cached command.
+     * @return Number of cache hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups that did not find a cached command.
+     * @return Number of cache misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of commands currently cached.
+     * @return Size of the cache.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The normalized form of a command, computed once and used by every rule's filters.
+ * Normalizing removes leading and trailing whitespace, whitespace after the '/', and converts ASCII letters to lower case,
+ * so variations such as "/PL" or "/ pl" are all checked as "/pl".
+ * Stores:
+ *   - Key (ex: /bukkit:pl), which "contains" and "regex" filters are checked against.
+ *   - Label Key (ex: /pl), the key without the namespace, so "/bukkit:pl" is also caught by a rule listing "/pl".
+ *   - Arguments (ex: user, bob), which are only split into words when a rule lists commands with arguments.
+ */
+public class NormalizedCommand {
+    private final String key;
+    private final String labelKey;
+    private final String namespace;
+    private final String message;
+    private final int argumentsStart;
+
+    /**
+     * Creates the normalized command.
+     * @param key Normalized command, including the leading '/'.
+     * @param namespaceLength Length of the namespace, or -1 if there isn't one.
+     * @param message Message the command was parsed from.
+     * @param argumentsStart Position in the message where the arguments start.
+     */
+    private NormalizedCommand(@NotNull final String key, final int namespaceLength, @NotNull final String message, final int argumentsStart) {
+        this.key = key;
+        this.message = message;
+        this.argumentsStart = argumentsStart;
+
+        if(namespaceLength < 0) {
+            this.labelKey = key;
+            this.namespace = null;
+        }
+        else {
+            this.labelKey = "/" + key.substring(namespaceLength + 2);
+            this.namespace = key.substring(1, namespaceLength + 1);
+        }
+    }
+
+    /**
+     * Normalizes the command used in a message, such as the message of a PlayerCommandPreprocessEvent.
+     * The leading '/' is optional. Arguments are kept as they are, and only normalized when they are needed.
+     * @param message Message to normalize.
+     * @return Normalized command.
+     */
+    public static NormalizedCommand parse(@NotNull final String message) {
+        final int length = message.length();
+        int index = 0;
+
+        // Skip whitespace before and after the '/'.
+        while(index < length && Character.isWhitespace(message.charAt(index))) {
+            index++;
+        }
+        if(index < length && message.charAt(index) == '/') {
+            index++;
+        }
+        while(index < length && Character.isWhitespace(message.charAt(index))) {
+            index++;
+        }
+
+        // Copy the first word, converting it to lower case and finding the namespace as we go.
+        final StringBuilder builder = new StringBuilder(length - index + 1).append('/');
+        int namespaceLength = -1;
+        while(index < length) {
+            final char character = message.charAt(index++);
+            if(Character.isWhitespace(character)) {
+                break;
+            }
+
+            if(character == ':' && namespaceLength < 0) {
+                namespaceLength = builder.length() - 1;
+            }
+
+            builder.append(toLowerCase(character));
+        }
+
+        return new NormalizedCommand(builder.toString(), namespaceLength, message, index);
+    }
+
+    /**
+     * Converts every ASCII letter in a String to lower case, the same way commands are normalized.
+     * Used to normalize filters so they match normalized commands.
+     * @param text Text to convert.
+     * @return Text in lower case.
+     */
+    public static String toLowerCase(@NotNull final String text) {
+        for(int index = 0; index < text.length(); index++) {
+            final char character = text.charAt(index);
+            if(character >= 'A' && character <= 'Z') {
+                // Only copy the String if it needs changes.
+                final char[] characters = text.toCharArray();
+                for(int remaining = index; remaining < characters.length; remaining++) {
+                    characters[remaining] = toLowerCase(characters[remaining]);
+                }
+                return new String(characters);
+            }
+        }
+
+        return text;
+    }
+
+    /**
+     * Converts an ASCII letter to lower case.
+     * @param character Character to convert.
+     * @return The character in lower case.
+     */
+    private static char toLowerCase(final char character) {
+        return (character >= 'A' && character <= 'Z') ? (char) (character + ('a' - 'A')) : character;
+    }
+
+    /**
+     * Get the normalized command, including the leading '/' and namespace.
+     * @return Normalized command (ex: /bukkit:pl).
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Get the normalized command followed by some of its normalized arguments, separated by single spaces.
+     * Used to cache commands by only the words that rules look at.
+     * @param depth Most words to include, counting the command itself.
+     * @return Normalized command and arguments (ex: /lp user bob).
+     */
+    public String getKey(final int depth) {
+        if(depth <= 1) {
+            return key;
+        }
+
+        final List<String> arguments = getArguments(depth - 1);
+        if(arguments.isEmpty()) {
+            return key;
+        }
+
+        final StringBuilder builder = new StringBuilder(key);
+        for(final String argument : arguments) {
+            builder.append(' ').append(argument);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Get the arguments of the command, converted to lower case the same way the command is.
+     * Arguments are separated by any amount of whitespace.
+     * @param limit Most arguments to return, so long messages aren't split more than needed.
+     * @return Normalized arguments, in order.
+     */
+    public List<String> getArguments(final int limit) {
+        final int length = message.length();
+        int index = argumentsStart;
+        List<String> arguments = Collections.emptyList();
+
+        while(arguments.size() < limit) {
+            while(index < length && Character.isWhitespace(message.charAt(index))) {
+                index++;
+            }
+            if(index == length) {
+                break;
+            }
+
+            final int start = index;
+            while(index < length && !Character.isWhitespace(message.charAt(index))) {
+                index++;
+            }
+
+            if(arguments.isEmpty()) {
+                arguments = new ArrayList<>(Math.min(limit, 8));
+            }
+            arguments.add(toLowerCase(message.substring(start, index)));
+        }
+
+        return arguments;
+    }
+
+    /**
+     * Get the normalized command without its namespace.
+     * Same as the key if there is no namespace.
+     * @return Normalized command without the namespace (ex: /pl).
+     */
+    public String getLabelKey() {
+        return labelKey;
+    }
+
+    /**
+     * Get the normalized command, without the leading '/'.
+     * @return Normalized command name (ex: bukkit:pl).
+     */
+    public String getName() {
+        return key.substring(1);
+    }
+
+    /**
+     * Get the namespace of the command, if it has one.
+     * @return The namespace (ex: bukkit), or null if there isn't one.
+     */
+    @Nullable
+    public String getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * Get if the command has a namespace.
+     * @return Whether the command has a namespace.
+     */
+    public boolean hasNamespace() {
+        return namespace != null;
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the regex filters of every loaded rule against a command.
+ * When using the {@link RegexEngine#LINEAR} engine, every supported filter is combined into a single automaton,
+ * which is simulated as a Pike VM so every filter is checked in one pass, in time proportional to the length of the command.
+ * Filters the automaton can't support, and every filter when using the {@link RegexEngine#JAVA} engine, are checked one by one with Java's regex engine.
+ */
+public class RegexAutomaton {
+    private final int ruleCount;
+    private final int[] opcodes;
+    private final int[] firstArguments;
+    private final int[] secondArguments;
+    private final int[][] characterClasses;
+    private final int[] patternStarts;
+    private final int[] patternRules;
+    private final List<List<Pattern>> fallbackPatterns = new ArrayList<>();
+    private final List<String> warnings = new ArrayList<>();
+
+    /**
+     * Builds the automaton from the regex filters of a list of rules.
+     * Each rule is identified by its position in the list.
+     * @param rules Rules to build the automaton from.
+     * @param engine Engine to check the filters with.
+     */
+    public RegexAutomaton(@NotNull final List<Rule> rules, @NotNull final RegexEngine engine) {
+        this(getNames(rules), getPatterns(rules), engine);
+    }
+
+    /**
+     * Builds the automaton from a single regex filter, which is given the id 0.
+     * Used to check filters one at a time with the same engine as the loaded rules, such as with /cb explain.
+     * @param pattern Regex filter to build the automaton from.
+     * @param engine Engine to check the filter with.
+     */
+    public RegexAutomaton(@NotNull final Pattern pattern, @NotNull final RegexEngine engine) {
+        this(Collections.singletonList("explain"), Collections.singletonList(Collections.singletonList(pattern)), engine);
+    }
+
+    /**
+     * Builds the automaton from the regex filters of each rule.
+     * @param names Name of each rule, for warnings.
+     * @param patterns Regex filters of each rule, indexed by rule id.
+     * @param engine Engine to check the filters with.
+     */
+    private RegexAutomaton(@NotNull final List<String> names, @NotNull final List<List<Pattern>> patterns, @NotNull final RegexEngine engine) {
+        this.ruleCount = patterns.size();
+
+        final RegexCompiler compiler = new RegexCompiler();
+        final List<Integer> starts = new ArrayList<>();
+        final List<Integer> owners = new ArrayList<>();
+
+        for(int ruleId = 0; ruleId < patterns.size(); ruleId++) {
+            final List<Pattern> fallback = new ArrayList<>();
+
+            for(final Pattern pattern : patterns.get(ruleId)) {
+                if(engine == RegexEngine.JAVA) {
+                    fallback.add(pattern);
+                    continue;
+                }
+
+                try {
+                    final boolean caseInsensitive = (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0;
+                    starts.add(compiler.compile(pattern.pattern(), owners.size(), caseInsensitive));
+                    owners.add(ruleId);
+                }
+                catch (UnsupportedRegexException exception) {
+                    // Keep checking the filter the old way instead of ignoring it.
+                    warnings.add("Rule \"" + names.get(ruleId) + "\": Regex \"" + pattern.pattern() + "\" can't use the LINEAR regex engine because "
+                            + exception.getMessage() + ". It will use the JAVA regex engine instead.");
+                    fallback.add(pattern);
+                }
+            }
+
+            fallbackPatterns.add(fallback);
+        }
+
+        this.opcodes = compiler.getOpcodes();
+        this.firstArguments = compiler.getFirstArguments();
+        this.secondArguments = compiler.getSecondArguments();
+        this.characterClasses = compiler.getCharacterClasses();
+        this.patternStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+        this.patternRules = owners.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Gets the name of each rule, for warnings.
+     * @param rules Rules to get the names of.
+     * @return Names, indexed by rule id.
+     */
+    private static List<String> getNames(@NotNull final List<Rule> rules) {
+        final List<String> names = new ArrayList<>(rules.size());
+        for(final Rule rule : rules) {
+            names.add(rule.getName());
+        }
+
+        return names;
+    }
+
+    /**
+     * Gets the regex filters of each rule.
+     * @param rules Rules to get the filters of.
+     * @return Regex filters, indexed by rule id.
+     */
+    private static List<List<Pattern>> getPatterns(@NotNull final List<Rule> rules) {
+        final List<List<Pattern>> patterns = new ArrayList<>(rules.size());
+        for(final Rule rule : rules) {
+            patterns.add(new ArrayList<>(rule.getRegex()));
+        }
+
+        return patterns;
+    }
+
+    /**
+     * Get the problems found while building the automaton, such as filters the LINEAR engine can't support.
+     * @return Build warnings of the automaton.
+     */
+    public Collection<String> getWarnings() {
+        return warnings;
+    }
+
+    /**
+     * Checks a command against every regex filter.
+     * @param command Command to check.
+     * @return Whether any of each rule's regex filters found a match, indexed by rule id.
+     */
+    public boolean[] match(@NotNull final String command) {
+        final boolean[] hits = new boolean[ruleCount];
+        if(patternStarts.length > 0) {
+            simulate(command, hits);
+        }
+
+        // Check any remaining filters one at a time.
+        for(int ruleId = 0; ruleId < ruleCount; ruleId++) {
+            if(hits[ruleId]) {
+                continue;
+            }
+
+            for(final Pattern pattern : fallbackPatterns.get(ruleId)) {
+                if(pattern.matcher(command).find()) {
+                    hits[ruleId] = true;
+                    break;
+                }
+            }
+        }
+
+        return hits;
+    }
+
+    /**
+     * Runs every compiled filter over the command at once, starting a new attempt at every position.
+     * Each instruction is visited at most once per position, so the running time is linear in the length of the command.
+     * @param command Command to check.
+     * @param hits Whether each rule has found a match, updated as filters match.
+     */
+    private void simulate(@NotNull final String command, final boolean[] hits) {
+        final boolean[] matched = new boolean[patternStarts.length];
+        final int[] remaining = {patternStarts.length};
+        final int[] stack = new int[opcodes.length * 2 + 2];
+        ThreadList current = new ThreadList(opcodes.length);
+        ThreadList next = new ThreadList(opcodes.length);
+
+        int position = 0;
+        while(true) {
+            // Start every filter that hasn't matched yet at this position.
+            for(int pattern = 0; pattern < patternStarts.length; pattern++) {
+                if(!matched[pattern]) {
+                    addThread(current, patternStarts[pattern], command, position, stack, matched, remaining, hits);
+                }
+            }
+
+            if(remaining[0] == 0 || position >= command.length()) {
+                return;
+            }
+
+            final int codePoint = command.codePointAt(position);
+            final int nextPosition = position + Character.charCount(codePoint);
+
+            // Advance every thread that accepts the current character.
+            next.clear();
+            for(int index = 0; index < current.size; index++) {
+                final int instruction = current.instructions[index];
+                switch (opcodes[instruction]) {
+                    case RegexCompiler.CHARACTER:
+                        if(firstArguments[instruction] == codePoint) {
+                            addThread(next, instruction + 1, command, nextPosition, stack, matched, remaining, hits);
+                        }
+                        break;
+
+                    case RegexCompiler.CHARACTER_CLASS:
+                        if(inClass(characterClasses[firstArguments[instruction]], codePoint)) {
+                            addThread(next, instruction + 1, command, nextPosition, stack, matched, remaining, hits);
+                        }
+                        break;
+                }
+            }
+
+            final ThreadList swap = current;
+            current = next;
+            next = swap;
+            position = nextPosition;
+        }
+    }
+
+    /**
+     * Adds a thread to a list, following every instruction that doesn't consume a character.
+     * @param list List to add the thread to.
+     * @param start Instruction the thread starts at.
+     * @param command Command being checked.
+     * @param position Position of the thread in the command.
+     * @param stack Stack used to follow instructions.
+     * @param matched Filters that have already matched.
+     * @param remaining Number of filters that haven't matched yet.
+     * @param hits Whether each rule has found a match.
+     */
+    private void addThread(@NotNull final ThreadList list, final int start, @NotNull final String command, final int position, final int[] stack, final boolean[] matched, final int[] remaining, final boolean[] hits) {
+        int stackSize = 0;
+        stack[stackSize++] = start;
+
+        while(stackSize > 0) {
+            final int instruction = stack[--stackSize];
+            if(!list.add(instruction)) {
+                continue;
+            }
+
+            switch (opcodes[instruction]) {
+                case RegexCompiler.JUMP:
+                    stack[stackSize++] = firstArguments[instruction];
+                    break;
+
+                case RegexCompiler.SPLIT:
+                    stack[stackSize++] = secondArguments[instruction];
+                    stack[stackSize++] = firstArguments[instruction];
+                    break;
+
+                case RegexCompiler.INPUT_START:
+                    if(position == 0) {
+                        stack[stackSize++] = instruction + 1;
+                    }
+                    break;
+
+                case RegexCompiler.LINE_END:
+                    if(isLineEnd(command, position)) {
+                        stack[stackSize++] = instruction + 1;
+                    }
+                    break;
+
+                case RegexCompiler.INPUT_END:
+                    if(position == command.length()) {
+                        stack[stackSize++] = instruction + 1;
+                    }
+                    break;
+
+                case RegexCompiler.MATCH: {
+                    final int pattern = firstArguments[instruction];
+                    if(!matched[pattern]) {
+                        matched[pattern] = true;
+                        remaining[0]--;
+                        hits[patternRules[pattern]] = true;
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a position is at the end of the command, or just before a final line terminator, like Java's '$'.
+     * @param command Command being checked.
+     * @param position Position in the command.
+     * @return Whether the position counts as the end of the line.
+     */
+    private static boolean isLineEnd(@NotNull final String command, final int position) {
+        final int length = command.length();
+        if(position == length) {
+            return true;
+        }
+
+        if(position == length - 2) {
+            return command.charAt(position) == '\r' && command.charAt(position + 1) == '\n';
+        }
+
+        if(position == length - 1) {
+            final char character = command.charAt(position);
+
+            // Never match between the two characters of a "\r\n".
+            if(character == '\n') {
+                return position == 0 || command.charAt(position - 1) != '\r';
+            }
+
+            return character == '\r' || character == 0x85 || character == 0x2028 || character == 0x2029;
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if a code point is within a character class.
+     * @param ranges Sorted pairs of inclusive code point ranges.
+     * @param codePoint Code point to check.
+     * @return Whether the code point is in the class.
+     */
+    private static boolean inClass(final int[] ranges, final int codePoint) {
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+        while(low <= high) {
+            final int middle = (low + high) >>> 1;
+            if(codePoint < ranges[middle * 2]) {
+                high = middle - 1;
+            }
+            else if(codePoint > ranges[middle * 2 + 1]) {
+                low = middle + 1;
+            }
+            else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * A set of instructions that can be cleared in constant time, keeping the order they were added in.
+     */
+    private static class ThreadList {
+        private final int[] instructions;
+        private final int[] indexes;
+        private int size = 0;
+
+        /**
+         * Creates the list.
+         * @param capacity Number of instructions in the automaton.
+         */
+        private ThreadList(final int capacity) {
+            this.instructions = new int[capacity];
+            this.indexes = new int[capacity];
+        }
+
+        /**
+         * Adds an instruction to the list.
+         * @param instruction Instruction to add.
+         * @return Whether it was added, or false if it was already in the list.
+         */
+        private boolean add(final int instruction) {
+            final int index = indexes[instruction];
+            if(index < size && instructions[index] == instruction) {
+                return false;
+            }
+
+            indexes[instruction] = size;
+            instructions[size++] = instruction;
+            return true;
+        }
+
+        /**
+         * Removes every instruction from the list.
+         */
+        private void clear() {
+            size = 0;
+        }
+    }
+}
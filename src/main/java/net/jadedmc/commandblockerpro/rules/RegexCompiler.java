@@ -0,0 +1,966 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiles regex filters into instructions for the {@link RegexAutomaton}, using Thompson's construction.
+ * Many filters can be compiled into the same set of instructions, each ending in its own match instruction.
+ * Only supports the regex features that can be checked without backtracking.
+ */
+class RegexCompiler {
+    static final int CHARACTER = 0;
+    static final int CHARACTER_CLASS = 1;
+    static final int SPLIT = 2;
+    static final int JUMP = 3;
+    static final int INPUT_START = 4;
+    static final int LINE_END = 5;
+    static final int INPUT_END = 6;
+    static final int MATCH = 7;
+
+    private static final int MAX_CODE_POINT = Character.MAX_CODE_POINT;
+    private static final int MAX_INSTRUCTIONS = 10000;
+
+    private static final int[] DIGITS = {'0', '9'};
+    private static final int[] WORD_CHARACTERS = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+    private static final int[] WHITESPACE = {'\t', '\r', ' ', ' '};
+    private static final int[] LINE_TERMINATORS = {'\n', '\n', '\r', '\r', 0x85, 0x85, 0x2028, 0x2029};
+
+    private int[] opcodes = new int[64];
+    private int[] firstArguments = new int[64];
+    private int[] secondArguments = new int[64];
+    private int size = 0;
+    private final List<int[]> characterClasses = new ArrayList<>();
+
+    /**
+     * Compiles a regex filter, adding its instructions to the ones compiled so far.
+     * Nothing is added if the filter can't be compiled.
+     * @param pattern Regex filter to compile.
+     * @param patternId Id reported by the filter's match instruction.
+     * @param caseInsensitive Whether ASCII letters should match regardless of case, like Java's CASE_INSENSITIVE flag.
+     * @return Position of the first instruction of the filter.
+     * @throws UnsupportedRegexException If the filter uses an unsupported feature.
+     */
+    int compile(@NotNull final String pattern, final int patternId, final boolean caseInsensitive) throws UnsupportedRegexException {
+        final int start = size;
+        final int classCount = characterClasses.size();
+
+        try {
+            final Node node = new Parser(pattern, caseInsensitive).parse();
+            emit(node, start + MAX_INSTRUCTIONS);
+            add(MATCH, patternId, 0, start + MAX_INSTRUCTIONS);
+        }
+        catch (UnsupportedRegexException exception) {
+            // Roll back anything that was added before the problem was found.
+            size = start;
+            characterClasses.subList(classCount, characterClasses.size()).clear();
+            throw exception;
+        }
+
+        return start;
+    }
+
+    /**
+     * Get the opcodes of every compiled instruction.
+     * @return Instruction opcodes.
+     */
+    int[] getOpcodes() {
+        return Arrays.copyOf(opcodes, size);
+    }
+
+    /**
+     * Get the first argument of every compiled instruction.
+     * @return First instruction arguments.
+     */
+    int[] getFirstArguments() {
+        return Arrays.copyOf(firstArguments, size);
+    }
+
+    /**
+     * Get the second argument of every compiled instruction.
+     * @return Second instruction arguments.
+     */
+    int[] getSecondArguments() {
+        return Arrays.copyOf(secondArguments, size);
+    }
+
+    /**
+     * Get every compiled character class, stored as sorted pairs of inclusive code point ranges.
+     * @return Compiled character classes.
+     */
+    int[][] getCharacterClasses() {
+        return characterClasses.toArray(new int[0][]);
+    }
+
+    /**
+     * Adds the instructions for a parsed node.
+     * @param node Node to add instructions for.
+     * @param limit Maximum number of instructions allowed.
+     * @throws UnsupportedRegexException If the filter would need too many instructions.
+     */
+    private void emit(@NotNull final Node node, final int limit) throws UnsupportedRegexException {
+        switch (node.type) {
+            case LITERAL:
+                add(CHARACTER, node.value, 0, limit);
+                break;
+
+            case CLASS:
+                characterClasses.add(node.ranges);
+                add(CHARACTER_CLASS, characterClasses.size() - 1, 0, limit);
+                break;
+
+            case ASSERTION:
+                add(node.value, 0, 0, limit);
+                break;
+
+            case CONCATENATION:
+                for(final Node child : node.children) {
+                    emit(child, limit);
+                }
+                break;
+
+            case ALTERNATION: {
+                final List<Integer> jumps = new ArrayList<>();
+                for(int index = 0; index < node.children.size(); index++) {
+                    // The last alternative doesn't need to split.
+                    if(index == node.children.size() - 1) {
+                        emit(node.children.get(index), limit);
+                        break;
+                    }
+
+                    final int split = add(SPLIT, size + 1, 0, limit);
+                    emit(node.children.get(index), limit);
+                    jumps.add(add(JUMP, 0, 0, limit));
+                    secondArguments[split] = size;
+                }
+
+                for(final int jump : jumps) {
+                    firstArguments[jump] = size;
+                }
+                break;
+            }
+
+            case REPEAT: {
+                final Node child = node.children.get(0);
+                for(int count = 0; count < node.minimum; count++) {
+                    emit(child, limit);
+                }
+
+                if(node.maximum < 0) {
+                    // Loop back to a split for unlimited repetitions.
+                    final int split = add(SPLIT, size + 1, 0, limit);
+                    emit(child, limit);
+                    add(JUMP, split, 0, limit);
+                    secondArguments[split] = size;
+                }
+                else {
+                    // Each optional repetition can skip to the end.
+                    final List<Integer> splits = new ArrayList<>();
+                    for(int count = node.minimum; count < node.maximum; count++) {
+                        splits.add(add(SPLIT, size + 1, 0, limit));
+                        emit(child, limit);
+                    }
+
+                    for(final int split : splits) {
+                        secondArguments[split] = size;
+                    }
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Adds a single instruction.
+     * @param opcode Opcode of the instruction.
+     * @param firstArgument First argument of the instruction.
+     * @param secondArgument Second argument of the instruction.
+     * @param limit Maximum number of instructions allowed.
+     * @return Position of the added instruction.
+     * @throws UnsupportedRegexException If the filter would need too many instructions.
+     */
+    private int add(final int opcode, final int firstArgument, final int secondArgument, final int limit) throws UnsupportedRegexException {
+        if(size >= limit) {
+            throw new UnsupportedRegexException("it is too large");
+        }
+
+        if(size == opcodes.length) {
+            opcodes = Arrays.copyOf(opcodes, size * 2);
+            firstArguments = Arrays.copyOf(firstArguments, size * 2);
+            secondArguments = Arrays.copyOf(secondArguments, size * 2);
+        }
+
+        opcodes[size] = opcode;
+        firstArguments[size] = firstArgument;
+        secondArguments[size] = secondArgument;
+        return size++;
+    }
+
+    /**
+     * Sorts and merges a set of code point ranges, optionally inverting them.
+     * @param ranges Pairs of inclusive code point ranges.
+     * @param negate Whether to invert the ranges.
+     * @return Sorted and merged ranges.
+     */
+    static int[] normalize(@NotNull final int[] ranges, final boolean negate) {
+        final int pairs = ranges.length / 2;
+        final long[] sorted = new long[pairs];
+        for(int pair = 0; pair < pairs; pair++) {
+            sorted[pair] = ((long) ranges[pair * 2] << 32) | ranges[pair * 2 + 1];
+        }
+        Arrays.sort(sorted);
+
+        // Merge overlapping and touching ranges.
+        final int[] merged = new int[pairs * 2];
+        int length = 0;
+        for(final long range : sorted) {
+            final int low = (int) (range >>> 32);
+            final int high = (int) range;
+            if(length > 0 && low <= merged[length - 1] + 1) {
+                merged[length - 1] = Math.max(merged[length - 1], high);
+            }
+            else {
+                merged[length++] = low;
+                merged[length++] = high;
+            }
+        }
+
+        if(!negate) {
+            return Arrays.copyOf(merged, length);
+        }
+
+        // Fill in the gaps between the ranges instead.
+        final int[] inverted = new int[length + 2];
+        int invertedLength = 0;
+        int next = 0;
+        for(int index = 0; index < length; index += 2) {
+            if(merged[index] > next) {
+                inverted[invertedLength++] = next;
+                inverted[invertedLength++] = merged[index] - 1;
+            }
+            next = merged[index + 1] + 1;
+        }
+
+        if(next <= MAX_CODE_POINT) {
+            inverted[invertedLength++] = next;
+            inverted[invertedLength++] = MAX_CODE_POINT;
+        }
+
+        return Arrays.copyOf(inverted, invertedLength);
+    }
+
+    /**
+     * Adds the other case of every ASCII letter in a set of code point ranges.
+     * @param ranges Pairs of inclusive code point ranges.
+     * @return Ranges including both cases of every ASCII letter.
+     */
+    static int[] addOtherCase(@NotNull final int[] ranges) {
+        final int[] result = Arrays.copyOf(ranges, ranges.length * 3);
+        int length = ranges.length;
+        for(int index = 0; index < ranges.length; index += 2) {
+            length = addShiftedOverlap(ranges[index], ranges[index + 1], 'A', 'Z', 'a' - 'A', result, length);
+            length = addShiftedOverlap(ranges[index], ranges[index + 1], 'a', 'z', 'A' - 'a', result, length);
+        }
+
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * Adds the overlap of two ranges, shifted by an offset.
+     * @param low Start of the first range.
+     * @param high End of the first range.
+     * @param letterLow Start of the second range.
+     * @param letterHigh End of the second range.
+     * @param offset Offset to shift the overlap by.
+     * @param result Array to add the range to.
+     * @param length Number of values in the array.
+     * @return New number of values in the array.
+     */
+    private static int addShiftedOverlap(final int low, final int high, final int letterLow, final int letterHigh, final int offset, final int[] result, final int length) {
+        final int overlapLow = Math.max(low, letterLow);
+        final int overlapHigh = Math.min(high, letterHigh);
+        if(overlapLow > overlapHigh) {
+            return length;
+        }
+
+        result[length] = overlapLow + offset;
+        result[length + 1] = overlapHigh + offset;
+        return length + 2;
+    }
+
+    /**
+     * The different kinds of nodes a filter is parsed into.
+     */
+    private enum NodeType {
+        LITERAL,
+        CLASS,
+        ASSERTION,
+        CONCATENATION,
+        ALTERNATION,
+        REPEAT
+    }
+
+    /**
+     * A single part of a parsed regex filter.
+     */
+    private static class Node {
+        private final NodeType type;
+        private final int value;
+        private final int[] ranges;
+        private final List<Node> children;
+        private final int minimum;
+        private final int maximum;
+
+        /**
+         * Creates the node. Use the static factory methods instead.
+         */
+        private Node(final NodeType type, final int value, final int[] ranges, final List<Node> children, final int minimum, final int maximum) {
+            this.type = type;
+            this.value = value;
+            this.ranges = ranges;
+            this.children = children;
+            this.minimum = minimum;
+            this.maximum = maximum;
+        }
+
+        /**
+         * Checks if the node, or any node inside it, is an anchor.
+         * @return Whether the node contains an anchor.
+         */
+        private boolean hasAssertion() {
+            if(type == NodeType.ASSERTION) {
+                return true;
+            }
+
+            if(children != null) {
+                for(final Node child : children) {
+                    if(child.hasAssertion()) {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Creates a node matching a single character.
+         * @param codePoint Code point of the character.
+         * @return Created node.
+         */
+        private static Node literal(final int codePoint) {
+            return new Node(NodeType.LITERAL, codePoint, null, null, 0, 0);
+        }
+
+        /**
+         * Creates a node matching any character in a class.
+         * @param ranges Sorted and merged ranges of the class.
+         * @return Created node.
+         */
+        private static Node characterClass(final int[] ranges) {
+            return new Node(NodeType.CLASS, 0, ranges, null, 0, 0);
+        }
+
+        /**
+         * Creates a node matching a position instead of a character.
+         * @param opcode Opcode of the anchor instruction.
+         * @return Created node.
+         */
+        private static Node assertion(final int opcode) {
+            return new Node(NodeType.ASSERTION, opcode, null, null, 0, 0);
+        }
+
+        /**
+         * Creates a node combining other nodes.
+         * @param type Either a concatenation or an alternation.
+         * @param children Nodes to combine.
+         * @return Created node.
+         */
+        private static Node group(final NodeType type, final List<Node> children) {
+            return new Node(type, 0, null, children, 0, 0);
+        }
+
+        /**
+         * Creates a node repeating another node.
+         * @param child Node to repeat.
+         * @param minimum Minimum number of repetitions.
+         * @param maximum Maximum number of repetitions, or -1 for no limit.
+         * @return Created node.
+         */
+        private static Node repeat(final Node child, final int minimum, final int maximum) {
+            final List<Node> children = new ArrayList<>();
+            children.add(child);
+            return new Node(NodeType.REPEAT, 0, null, children, minimum, maximum);
+        }
+    }
+
+    /**
+     * A recursive descent parser for the supported subset of Java's regex syntax.
+     */
+    private static class Parser {
+        private final String pattern;
+        private final boolean caseInsensitive;
+        private int position = 0;
+
+        /**
+         * Creates the parser.
+         * @param pattern Regex filter to parse.
+         * @param caseInsensitive Whether ASCII letters should match regardless of case.
+         */
+        private Parser(@NotNull final String pattern, final boolean caseInsensitive) {
+            this.pattern = pattern;
+            this.caseInsensitive = caseInsensitive;
+        }
+
+        /**
+         * Creates a node matching a single character, in either case if the filter ignores case.
+         * @param codePoint Code point of the character.
+         * @return Created node.
+         */
+        private Node literal(final int codePoint) {
+            if(caseInsensitive && ((codePoint >= 'A' && codePoint <= 'Z') || (codePoint >= 'a' && codePoint <= 'z'))) {
+                return Node.characterClass(normalize(addOtherCase(new int[]{codePoint, codePoint}), false));
+            }
+
+            return Node.literal(codePoint);
+        }
+
+        /**
+         * Parses the whole filter.
+         * @return Parsed filter.
+         * @throws UnsupportedRegexException If the filter uses an unsupported feature.
+         */
+        private Node parse() throws UnsupportedRegexException {
+            final Node node = parseAlternation();
+            if(position < pattern.length()) {
+                throw new UnsupportedRegexException("it has an unmatched ')'");
+            }
+
+            return node;
+        }
+
+        /**
+         * Parses alternatives separated by '|'.
+         * @return Parsed alternatives.
+         * @throws UnsupportedRegexException If the filter uses an unsupported feature.
+         */
+        private Node parseAlternation() throws UnsupportedRegexException {
+            final List<Node> alternatives = new ArrayList<>();
+            alternatives.add(parseConcatenation());
+
+            while(position < pattern.length() && pattern.charAt(position) == '|') {
+                position++;
+                alternatives.add(parseConcatenation());
+            }
+
+            return alternatives.size() == 1 ? alternatives.get(0) : Node.group(NodeType.ALTERNATION, alternatives);
+        }
+
+        /**
+         * Parses a sequence of atoms, up to the next '|' or ')'.
+         * @return Parsed sequence.
+         * @throws UnsupportedRegexException If the filter uses an unsupported feature.
+         */
+        private Node parseConcatenation() throws UnsupportedRegexException {
+            final List<Node> sequence = new ArrayList<>();
+            while(position < pattern.length() && pattern.charAt(position) != '|' && pattern.charAt(position) != ')') {
+                sequence.add(parseQuantifier(parseAtom()));
+            }
+
+            return sequence.size() == 1 ? sequence.get(0) : Node.group(NodeType.CONCATENATION, sequence);
+        }
+
+        /**
+         * Parses the quantifier following an atom, if there is one.
+         * @param atom Atom the quantifier applies to.
+         * @return The atom, repeated as the quantifier requires.
+         * @throws UnsupportedRegexException If the quantifier is unsupported.
+         */
+        private Node parseQuantifier(@NotNull final Node atom) throws UnsupportedRegexException {
+            if(position >= pattern.length()) {
+                return atom;
+            }
+
+            final int minimum;
+            final int maximum;
+            switch (pattern.charAt(position)) {
+                case '*':
+                    minimum = 0;
+                    maximum = -1;
+                    position++;
+                    break;
+
+                case '+':
+                    minimum = 1;
+                    maximum = -1;
+                    position++;
+                    break;
+
+                case '?':
+                    minimum = 0;
+                    maximum = 1;
+                    position++;
+                    break;
+
+                case '{': {
+                    position++;
+                    minimum = parseNumber();
+                    if(peek(',')) {
+                        position++;
+                        maximum = peekDigit() ? parseNumber() : -1;
+                    }
+                    else {
+                        maximum = minimum;
+                    }
+
+                    if(!peek('}') || (maximum >= 0 && maximum < minimum)) {
+                        throw new UnsupportedRegexException("it has an invalid repetition");
+                    }
+                    position++;
+                    break;
+                }
+
+                default:
+                    return atom;
+            }
+
+            // Lazy quantifiers find the same matches, but possessive ones can find fewer.
+            if(peek('?')) {
+                position++;
+            }
+            else if(peek('+')) {
+                throw new UnsupportedRegexException("possessive quantifiers are not supported");
+            }
+
+            if(peek('*') || peek('+') || peek('?') || peek('{')) {
+                throw new UnsupportedRegexException("stacked quantifiers are not supported");
+            }
+
+            // Java stops repeating after an empty repetition, which changes the result when an anchor is repeated.
+            if(atom.hasAssertion()) {
+                throw new UnsupportedRegexException("repeated anchors are not supported");
+            }
+
+            return Node.repeat(atom, minimum, maximum);
+        }
+
+        /**
+         * Parses a single atom, such as a character, class or group.
+         * @return Parsed atom.
+         * @throws UnsupportedRegexException If the atom is unsupported.
+         */
+        private Node parseAtom() throws UnsupportedRegexException {
+            final char character = pattern.charAt(position);
+            switch (character) {
+                case '(': {
+                    position++;
+                    if(peek('?')) {
+                        if(pattern.startsWith("?:", position)) {
+                            position += 2;
+                        }
+                        else if(pattern.startsWith("?<", position) && !pattern.startsWith("?<=", position) && !pattern.startsWith("?<!", position)) {
+                            // Named groups only capture, so the name can be skipped.
+                            final int end = pattern.indexOf('>', position);
+                            if(end < 0) {
+                                throw new UnsupportedRegexException("it has an invalid group name");
+                            }
+                            position = end + 1;
+                        }
+                        else {
+                            throw new UnsupportedRegexException("lookarounds, atomic groups and inline flags are not supported");
+                        }
+                    }
+
+                    final Node group = parseAlternation();
+                    if(!peek(')')) {
+                        throw new UnsupportedRegexException("it has an unclosed group");
+                    }
+                    position++;
+                    return group;
+                }
+
+                case '[':
+                    return Node.characterClass(parseClass());
+
+                case '.':
+                    position++;
+                    return Node.characterClass(normalize(LINE_TERMINATORS, true));
+
+                case '^':
+                    position++;
+                    return Node.assertion(INPUT_START);
+
+                case '$':
+                    position++;
+                    return Node.assertion(LINE_END);
+
+                case '\\':
+                    position++;
+                    return parseEscape();
+
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    throw new UnsupportedRegexException("it has a dangling quantifier");
+
+                default: {
+                    final int codePoint = pattern.codePointAt(position);
+                    position += Character.charCount(codePoint);
+                    return literal(codePoint);
+                }
+            }
+        }
+
+        /**
+         * Parses an escape sequence outside a character class, after the backslash.
+         * @return Parsed escape sequence.
+         * @throws UnsupportedRegexException If the escape sequence is unsupported.
+         */
+        private Node parseEscape() throws UnsupportedRegexException {
+            if(position >= pattern.length()) {
+                throw new UnsupportedRegexException("it ends with a backslash");
+            }
+
+            final char character = pattern.charAt(position);
+            switch (character) {
+                case 'A':
+                    position++;
+                    return Node.assertion(INPUT_START);
+
+                case 'Z':
+                    position++;
+                    return Node.assertion(LINE_END);
+
+                case 'z':
+                    position++;
+                    return Node.assertion(INPUT_END);
+
+                case 'Q': {
+                    // Everything up to \E is matched literally.
+                    position++;
+                    int end = pattern.indexOf("\\E", position);
+                    if(end < 0) {
+                        end = pattern.length();
+                    }
+
+                    final List<Node> literals = new ArrayList<>();
+                    while(position < end) {
+                        final int codePoint = pattern.codePointAt(position);
+                        position += Character.charCount(codePoint);
+                        literals.add(literal(codePoint));
+                    }
+
+                    // Java only repeats the last quoted character, so quantifiers are left to it.
+                    position = Math.min(end + 2, pattern.length());
+                    if(peek('*') || peek('+') || peek('?') || peek('{')) {
+                        throw new UnsupportedRegexException("quantified quotes are not supported");
+                    }
+                    return Node.group(NodeType.CONCATENATION, literals);
+                }
+
+                default: {
+                    final int[] predefined = parsePredefinedClass(character);
+                    if(predefined != null) {
+                        position++;
+                        return Node.characterClass(predefined);
+                    }
+
+                    return literal(parseEscapedCharacter());
+                }
+            }
+        }
+
+        /**
+         * Parses a character class, starting at the opening bracket.
+         * @return Sorted and merged ranges of the class.
+         * @throws UnsupportedRegexException If the class uses an unsupported feature.
+         */
+        private int[] parseClass() throws UnsupportedRegexException {
+            position++;
+            boolean negate = false;
+            if(peek('^')) {
+                negate = true;
+                position++;
+            }
+
+            final List<Integer> ranges = new ArrayList<>();
+            boolean first = true;
+            while(true) {
+                if(position >= pattern.length()) {
+                    throw new UnsupportedRegexException("it has an unclosed character class");
+                }
+
+                final char character = pattern.charAt(position);
+                if(character == ']' && !first) {
+                    position++;
+                    break;
+                }
+
+                if(character == '[' || pattern.startsWith("&&", position)) {
+                    throw new UnsupportedRegexException("nested character classes and intersections are not supported");
+                }
+
+                first = false;
+
+                // Add predefined classes as a whole.
+                if(character == '\\' && position + 1 < pattern.length()) {
+                    final int[] predefined = parsePredefinedClass(pattern.charAt(position + 1));
+                    if(predefined != null) {
+                        position += 2;
+                        if(peek('-') && position + 1 < pattern.length() && pattern.charAt(position + 1) != ']') {
+                            throw new UnsupportedRegexException("ranges of predefined classes are not supported");
+                        }
+
+                        for(final int bound : predefined) {
+                            ranges.add(bound);
+                        }
+                        continue;
+                    }
+                }
+
+                final int low = parseClassCharacter();
+                int high = low;
+
+                // A '-' followed by another character makes a range.
+                if(peek('-') && position + 1 < pattern.length() && pattern.charAt(position + 1) != ']') {
+                    position++;
+                    if(peek('[') || (peek('\\') && position + 1 < pattern.length() && parsePredefinedClass(pattern.charAt(position + 1)) != null)) {
+                        throw new UnsupportedRegexException("ranges of predefined classes are not supported");
+                    }
+
+                    high = parseClassCharacter();
+                    if(high < low) {
+                        throw new UnsupportedRegexException("it has an invalid range");
+                    }
+                }
+
+                ranges.add(low);
+                ranges.add(high);
+            }
+
+            final int[] bounds = new int[ranges.size()];
+            for(int index = 0; index < bounds.length; index++) {
+                bounds[index] = ranges.get(index);
+            }
+
+            // Letters are added in both cases before inverting the class, the same way Java does.
+            return normalize(caseInsensitive ? addOtherCase(bounds) : bounds, negate);
+        }
+
+        /**
+         * Parses a single character inside a character class.
+         * @return Code point of the character.
+         * @throws UnsupportedRegexException If the character is an unsupported escape sequence.
+         */
+        private int parseClassCharacter() throws UnsupportedRegexException {
+            if(peek('\\')) {
+                position++;
+                if(position >= pattern.length()) {
+                    throw new UnsupportedRegexException("it ends with a backslash");
+                }
+                return parseEscapedCharacter();
+            }
+
+            final int codePoint = pattern.codePointAt(position);
+            position += Character.charCount(codePoint);
+            return codePoint;
+        }
+
+        /**
+         * Parses an escape sequence representing a single character, after the backslash.
+         * @return Code point of the character.
+         * @throws UnsupportedRegexException If the escape sequence is unsupported.
+         */
+        private int parseEscapedCharacter() throws UnsupportedRegexException {
+            final char character = pattern.charAt(position++);
+            switch (character) {
+                case 't':
+                    return '\t';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 'f':
+                    return '\f';
+                case 'a':
+                    return 0x07;
+                case 'e':
+                    return 0x1B;
+
+                case '0': {
+                    // Octal escapes have up to three digits, with the first at most 3 when there are three.
+                    int value = 0;
+                    int digits = 0;
+                    while(digits < 3 && position < pattern.length() && pattern.charAt(position) >= '0' && pattern.charAt(position) <= '7') {
+                        final int next = value * 8 + (pattern.charAt(position) - '0');
+                        if(next > 0377) {
+                            break;
+                        }
+                        value = next;
+                        position++;
+                        digits++;
+                    }
+
+                    if(digits == 0) {
+                        throw new UnsupportedRegexException("it has an invalid octal escape");
+                    }
+                    return value;
+                }
+
+                case 'x': {
+                    if(peek('{')) {
+                        final int end = pattern.indexOf('}', position);
+                        if(end < 0) {
+                            throw new UnsupportedRegexException("it has an invalid hexadecimal escape");
+                        }
+
+                        final int value = parseHex(position + 1, end);
+                        position = end + 1;
+                        return value;
+                    }
+
+                    final int value = parseHex(position, position + 2);
+                    position += 2;
+                    return value;
+                }
+
+                case 'u': {
+                    final int value = parseHex(position, position + 4);
+                    position += 4;
+                    return value;
+                }
+
+                case 'c': {
+                    if(position >= pattern.length()) {
+                        throw new UnsupportedRegexException("it has an invalid control escape");
+                    }
+                    return pattern.charAt(position++) ^ 64;
+                }
+
+                default:
+                    // Escaped letters and digits have special meanings, but anything else is matched literally.
+                    if(Character.isLetterOrDigit(character)) {
+                        throw new UnsupportedRegexException("\\" + character + " is not supported");
+                    }
+
+                    if(Character.isHighSurrogate(character) && position < pattern.length() && Character.isLowSurrogate(pattern.charAt(position))) {
+                        return Character.toCodePoint(character, pattern.charAt(position++));
+                    }
+                    return character;
+            }
+        }
+
+        /**
+         * Parses a hexadecimal number within the filter.
+         * @param start Index of the first digit.
+         * @param end Index after the last digit.
+         * @return Parsed number.
+         * @throws UnsupportedRegexException If the number is invalid.
+         */
+        private int parseHex(final int start, final int end) throws UnsupportedRegexException {
+            if(start >= end || end > pattern.length()) {
+                throw new UnsupportedRegexException("it has an invalid hexadecimal escape");
+            }
+
+            int value = 0;
+            for(int index = start; index < end; index++) {
+                final int digit = Character.digit(pattern.charAt(index), 16);
+                if(digit < 0 || value > MAX_CODE_POINT) {
+                    throw new UnsupportedRegexException("it has an invalid hexadecimal escape");
+                }
+                value = value * 16 + digit;
+            }
+
+            if(value > MAX_CODE_POINT) {
+                throw new UnsupportedRegexException("it has an invalid hexadecimal escape");
+            }
+            return value;
+        }
+
+        /**
+         * Parses a number, such as in a repetition.
+         * @return Parsed number.
+         * @throws UnsupportedRegexException If there is no number, or it is too large.
+         */
+        private int parseNumber() throws UnsupportedRegexException {
+            final int start = position;
+            while(peekDigit()) {
+                position++;
+            }
+
+            if(position == start || position - start > 4) {
+                throw new UnsupportedRegexException("it has an invalid repetition");
+            }
+            return Integer.parseInt(pattern.substring(start, position));
+        }
+
+        /**
+         * Get the ranges of a predefined class such as \d, or null if the character isn't one.
+         * @param character Character after the backslash.
+         * @return Ranges of the predefined class, or null.
+         */
+        private int[] parsePredefinedClass(final char character) {
+            switch (character) {
+                case 'd':
+                    return normalize(DIGITS, false);
+                case 'D':
+                    return normalize(DIGITS, true);
+                case 'w':
+                    return normalize(WORD_CHARACTERS, false);
+                case 'W':
+                    return normalize(WORD_CHARACTERS, true);
+                case 's':
+                    return normalize(WHITESPACE, false);
+                case 'S':
+                    return normalize(WHITESPACE, true);
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * Checks if the next character of the filter is a given character.
+         * @param character Character to check for.
+         * @return Whether the next character matches.
+         */
+        private boolean peek(final char character) {
+            return position < pattern.length() && pattern.charAt(position) == character;
+        }
+
+        /**
+         * Checks if the next character of the filter is a digit.
+         * @return Whether the next character is a digit.
+         */
+        private boolean peekDigit() {
+            return position < pattern.length() && pattern.charAt(position) >= '0' && pattern.charAt(position) <= '9';
+        }
+    }
+}
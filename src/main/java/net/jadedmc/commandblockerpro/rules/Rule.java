@@ -25,16 +25,21 @@
 package net.jadedmc.commandblockerpro.rules;
 
 import net.jadedmc.commandblockerpro.CommandBlockerPro;
-import net.jadedmc.commandblockerpro.utils.CommandUtils;
+import net.jadedmc.commandblockerpro.GlobalSettings;
+import net.jadedmc.commandblockerpro.utils.MessageTemplate;
 import org.bukkit.Sound;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * Represents a pattern to follow when determining what commands should be blocked or hidden from a player.
@@ -45,23 +50,42 @@ import java.util.regex.Pattern;
  */
 @SuppressWarnings("unused")
 public class Rule {
+    private final int id;
+    private final String name;
     private final RuleType type;
     private final String bypassPermission;
-    private final List<String> commands = new ArrayList<>();
-    private final List<String> contains = new ArrayList<>();
-    private final List<String> regex = new ArrayList<>();
+    private final Set<String> commands = new LinkedHashSet<>();
+    private final Set<String> contains = new LinkedHashSet<>();
+    private final List<Pattern> regex = new ArrayList<>();
     private final boolean hasBlockMessage;
     private final String blockMessage;
+    private final MessageTemplate blockMessageTemplate;
     private final Sound blockSound;
     private final float blockSoundVolume;
     private final float blockSoundPitch;
     private final boolean hasBlockSound;
+    private final List<String> warnings = new ArrayList<>();
+    private final GlobalSettings settings;
 
     /**
      * Creates the rule using a configuration section.
+     * Uses the currently loaded global settings for anything the rule doesn't set.
      * @param config Configuration section storing the rule settings.
      */
     public Rule(final ConfigurationSection config) {
+        this(config, -1, CommandBlockerPro.getGlobalSettings());
+    }
+
+    /**
+     * Creates the rule using a configuration section.
+     * @param config Configuration section storing the rule settings.
+     * @param id Position of the rule in the order rules are loaded.
+     * @param settings Global settings used for anything the rule doesn't set, such as the block message.
+     */
+    public Rule(final ConfigurationSection config, final int id, final GlobalSettings settings) {
+        this.id = id;
+        this.settings = settings;
+        name = config.getName();
         type = RuleType.valueOf(config.getString("type"));
 
         if(config.isSet("bypassPermission")) {
@@ -71,39 +95,51 @@ public class Rule {
             bypassPermission = "commandblocker.admin";
         }
 
-        // Loop for applicable commands.
+        // Loop for applicable commands, which can include arguments.
         if(config.isSet("commands")) {
             for(String command : config.getStringList("commands")) {
-                commands.add(command.toLowerCase());
+                commands.add(NormalizedCommand.parse(command).getKey(Integer.MAX_VALUE));
             }
         }
 
         // Loop for applicable contains strings.
         if(config.isSet("contains")) {
             for(String containedString : config.getStringList("contains")) {
-                contains.add(containedString.toLowerCase());
+                contains.add(NormalizedCommand.toLowerCase(containedString));
             }
         }
 
-        // Loop for regex filters.
+        // Loop for regex filters, compiling them once so they can be reused for every command.
+        // Commands are normalized to lower case, so filters ignore case to match them.
         if(config.isSet("regex")) {
-            regex.addAll(config.getStringList("regex"));
+            for(final String filter : config.getStringList("regex")) {
+                try {
+                    regex.add(Pattern.compile(filter, Pattern.CASE_INSENSITIVE));
+                }
+                catch (PatternSyntaxException exception) {
+                    warnings.add("Invalid regex \"" + filter + "\" was skipped: " + exception.getDescription());
+                }
+            }
         }
 
         // Look for block message.
         if(config.isSet("blockMessage")) {
             hasBlockMessage = true;
             blockMessage = config.getString("blockMessage");
+            blockMessageTemplate = new MessageTemplate(blockMessage);
         }
         else {
             hasBlockMessage = false;
             blockMessage = "";
+            blockMessageTemplate = null;
         }
 
         // Look for block sounds.
-        if(config.isSet("blockSound.sound")) {
+        // Unknown sounds are reported when the rule is loaded, and the rule falls back to the global block sound.
+        final Sound configuredSound = GlobalSettings.parseSound(config.getString("blockSound.sound"), warnings);
+        if(configuredSound != null) {
             hasBlockSound = true;
-            blockSound = Sound.valueOf(config.getString("blockSound.sound"));
+            blockSound = configuredSound;
 
             if(config.isSet("blockSound.pitch")) {
                 blockSoundPitch = (float) config.getDouble("blockSound.pitch");
@@ -126,11 +162,6 @@ public class Rule {
             blockSoundVolume = 0;
             blockSoundPitch = 0;
         }
-
-        // Register the dummy commands if the Rule Type is MESSAGE.
-        if(this.type == RuleType.MESSAGE) {
-            CommandUtils.registerDummyCommands(this);
-        }
     }
 
     /**
@@ -143,7 +174,25 @@ public class Rule {
             return blockMessage;
         }
 
-        return CommandBlockerPro.getGlobalBlockMessage();
+        return settings.getBlockMessage();
+    }
+
+    /**
+     * Get the block message set in the rule's own config, parsed ahead of time.
+     * Does not fall back to the global block message.
+     * @return Parsed block message of the rule, or null if the rule doesn't set one.
+     */
+    @Nullable
+    public MessageTemplate getBlockMessageTemplate() {
+        return blockMessageTemplate;
+    }
+
+    /**
+     * Get the global settings the rule was loaded with.
+     * @return Global Settings.
+     */
+    public GlobalSettings getSettings() {
+        return settings;
     }
 
     /**
@@ -156,7 +205,7 @@ public class Rule {
             return blockSound;
         }
 
-        return CommandBlockerPro.getGlobalBlockSound();
+        return settings.getBlockSound();
     }
 
     /**
@@ -168,7 +217,7 @@ public class Rule {
         if(hasBlockSound) {
             return blockSoundPitch;
         }
-        return CommandBlockerPro.getGlobalBlockSoundPitch();
+        return settings.getBlockSoundPitch();
     }
 
     /**
@@ -180,7 +229,49 @@ public class Rule {
         if(hasBlockSound) {
             return blockSoundVolume;
         }
-        return CommandBlockerPro.getGlobalBlockSoundVolume();
+        return settings.getBlockSoundVolume();
+    }
+
+    /**
+     * Get all contained strings stored by the rule.
+     * @return The rule's stored contained strings.
+     */
+    public Collection<String> getContains() {
+        return contains;
+    }
+
+    /**
+     * Get all compiled regex filters stored by the rule.
+     * @return The rule's stored regex filters.
+     */
+    public Collection<Pattern> getRegex() {
+        return regex;
+    }
+
+    /**
+     * Get the id of the rule, which is its position in the order rules are loaded.
+     * Returns -1 if the rule was not loaded by the RuleManager.
+     * @return Id of the rule.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the name of the rule, which is its key in config.yml.
+     * @return Name of the rule.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the problems found while loading the rule, such as invalid regex filters.
+     * Filters that failed to load are skipped instead of being checked.
+     * @return Load warnings of the rule.
+     */
+    public Collection<String> getWarnings() {
+        return warnings;
     }
 
     /**
@@ -193,6 +284,7 @@ public class Rule {
 
     /**
      * Get all commands stored by the rule.
+     * Commands listed with arguments keep them, separated by single spaces (ex: /lp user * permission set).
      * @return The rule's stored commands.
      */
     public Collection<String> getCommands() {
@@ -212,7 +304,7 @@ public class Rule {
      * @return Whether the rule has a block message configured.
      */
     public boolean hasBlockMessage() {
-        return (this.hasBlockMessage || CommandBlockerPro.hasGlobalBlockMessage());
+        return (this.hasBlockMessage || settings.hasBlockMessage());
     }
 
     /**
@@ -220,7 +312,7 @@ public class Rule {
      * @return Whether the rule has a block sound configured.
      */
     public boolean hasBlockSound() {
-        return (this.hasBlockSound || CommandBlockerPro.hasGlobalBlockSound());
+        return (this.hasBlockSound || settings.hasBlockSound());
     }
 
     /**
@@ -230,71 +322,18 @@ public class Rule {
      * @return Whether they can use the command or not.
      */
     public boolean shouldBlock(Player player, String command) {
-        // Don't block if no permission was set.
-        if(bypassPermission.isEmpty()) {
-            return false;
-        }
-
-        // Only block if the player does not have the bypass permission.
-        if(player.hasPermission(bypassPermission)) {
-           return false;
-        }
-
-        // The hide rule does not block commands.
-        if(type == RuleType.HIDE) {
-            return false;
-        }
-
-        // Check the type of the rule to determine if the command should be blocked.
-        switch (type) {
-            case BLACKLIST:
-
-                // Check for contained strings.
-                for(String containsString : contains) {
-                    if(command.toLowerCase().contains(containsString)) {
-                        return true;
-                    }
-                }
-
-                // Loops through each regex statement in the configured list.
-                for(String filter : regex) {
-                    Pattern pattern = Pattern.compile(filter);
-                    Matcher matcher = pattern.matcher(command);
-
-                    // Checks if there is a match.
-                    if(matcher.find()) {
-                        // If so, the command fails.
-                        return true;
-                    }
-                }
-
-                return commands.contains(command.toLowerCase());
-
-            case WHITELIST:
-                // Check for contained strings.
-                for(String containsString : contains) {
-                    if(!command.toLowerCase().contains(containsString)) {
-                        return true;
-                    }
-                }
-
-                // Loops through each regex statement in the configured list.
-                for(String filter : regex) {
-                    Pattern pattern = Pattern.compile(filter);
-                    Matcher matcher = pattern.matcher(command);
-
-                    // Checks if there is a match.
-                    if(matcher.find()) {
-                        // If so, the command fails.
-                        return false;
-                    }
-                }
-
-                return !commands.contains(command.toLowerCase());
-        }
+        return shouldBlock(player, new CommandMatch(NormalizedCommand.parse(command)));
+    }
 
-        // If something goes wrong, don't block the command.
-        return false;
+    /**
+     * Determine if a rule blocks a given player from using a given command.
+     * Used when the command has already been checked against every rule's filters by the RuleManager.
+     * @param player Player trying to use the command.
+     * @param match Result of checking the command against every rule's filters.
+     * @return Whether they can use the command or not.
+     */
+    public boolean shouldBlock(Player player, CommandMatch match) {
+        return blocksCommands() && !canBypass(player) && matches(match);
     }
 
     /**
@@ -304,65 +343,97 @@ public class Rule {
      * @return Whether they can tab complete the command or not.
      */
     public boolean shouldHide(Player player, String command) {
-        // Don't hide if no permission was set.
-        if(bypassPermission.isEmpty()) {
-            return false;
-        }
+        return shouldHide(player, new CommandMatch(NormalizedCommand.parse(command)));
+    }
 
-        // Only hide if the player does not have the bypass permission.
-        if(player.hasPermission(bypassPermission)) {
-            return false;
-        }
+    /**
+     * Determine if a rule blocks a given player from hiding a given command from tab complete.
+     * Used when the command has already been checked against every rule's filters by the RuleManager.
+     * @param player Player trying to tab complete the command.
+     * @param match Result of checking the command against every rule's filters.
+     * @return Whether they can tab complete the command or not.
+     */
+    public boolean shouldHide(Player player, CommandMatch match) {
+        return hidesCommands() && !canBypass(player) && matches(match);
+    }
 
-        // Check the type of the rule to determine if the command should be hidden.
-        switch(type) {
+    /**
+     * Get if the rule blocks the commands it matches.
+     * The hide rule does not block commands.
+     * @return Whether the rule blocks commands.
+     */
+    public boolean blocksCommands() {
+        return type == RuleType.BLACKLIST || type == RuleType.WHITELIST;
+    }
+
+    /**
+     * Get if the rule hides the commands it matches from tab complete.
+     * @return Whether the rule hides commands.
+     */
+    public boolean hidesCommands() {
+        return type == RuleType.BLACKLIST || type == RuleType.HIDE || type == RuleType.WHITELIST;
+    }
+
+    /**
+     * Determine if a player is not affected by the rule.
+     * Nobody is affected if no bypass permission was set.
+     * @param player Player to check.
+     * @return Whether the player can bypass the rule.
+     */
+    public boolean canBypass(Player player) {
+        return canBypass(player::hasPermission);
+    }
+
+    /**
+     * Determine if someone with a given set of permissions is not affected by the rule.
+     * Used to check rules without a player, such as when replaying recorded commands.
+     * @param permissionCheck Checks if the permission holder has a permission.
+     * @return Whether the permission holder can bypass the rule.
+     */
+    public boolean canBypass(Predicate<String> permissionCheck) {
+        return bypassPermission.isEmpty() || permissionCheck.test(bypassPermission);
+    }
+
+    /**
+     * Determine if the rule catches a command, without checking the rule type or any player's permissions.
+     * The result only depends on the command, so it can be shared between players.
+     * @param match Result of checking the command against every rule's filters.
+     * @return Whether the rule catches the command.
+     */
+    public boolean matches(CommandMatch match) {
+        // Check the type of the rule to determine if the command is caught.
+        switch (type) {
             case BLACKLIST:
             case HIDE:
                 // Check for contained strings.
-                for(String containsString : contains) {
-                    if(command.toLowerCase().contains(containsString)) {
-                        return true;
-                    }
+                if(match.containsAny(this)) {
+                    return true;
                 }
 
-                // Loops through each regex statement in the configured list.
-                for(String filter : regex) {
-                    Pattern pattern = Pattern.compile(filter);
-                    Matcher matcher = pattern.matcher(command);
-
-                    // Checks if there is a match.
-                    if(matcher.find()) {
-                        // If so, the command fails.
-                        return true;
-                    }
+                // Checks if any regex statement in the configured list has a match.
+                if(match.matchesRegex(this)) {
+                    // If so, the command fails.
+                    return true;
                 }
 
-                return commands.contains(command.toLowerCase());
+                return match.isListed(this);
 
             case WHITELIST:
                 // Check for contained strings.
-                for(String containsString : contains) {
-                    if(!command.toLowerCase().contains(containsString)) {
-                        return true;
-                    }
+                if(!match.containsAll(this)) {
+                    return true;
                 }
 
-                // Loops through each regex statement in the configured list.
-                for(String filter : regex) {
-                    Pattern pattern = Pattern.compile(filter);
-                    Matcher matcher = pattern.matcher(command);
-
-                    // Checks if there is a match.
-                    if(matcher.find()) {
-                        // If so, the command fails.
-                        return false;
-                    }
+                // Checks if any regex statement in the configured list has a match.
+                if(match.matchesRegex(this)) {
+                    // If so, the command passes.
+                    return false;
                 }
 
-                return !commands.contains(command.toLowerCase());
+                return !match.isListed(this);
         }
 
-        // If something goes wrong, don't hide the command.
+        // If something goes wrong, don't catch the command.
         return false;
     }
 }
\ No newline at end of file
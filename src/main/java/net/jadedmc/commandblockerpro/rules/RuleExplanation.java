@@ -0,0 +1,209 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Explains how a rule treats a command, by checking each of the rule's filters one at a time and timing each one.
+ * Regex filters are checked with the same engine as the loaded rules, so their results and timings match the normal check.
+ * Used by /cb explain. This is much slower than the normal check, so it is only used for debugging rules.
+ */
+public class RuleExplanation {
+    private final Rule rule;
+    private final boolean bypassed;
+    private final boolean caught;
+    private final List<FilterResult> results = new ArrayList<>();
+
+    /**
+     * Explains how a rule treats a command.
+     * @param ruleSet Rules the rule was loaded with, which decide which regex engine is used.
+     * @param rule Rule to check.
+     * @param command Command to check.
+     * @param caught Whether the rule catches the command, found with {@link RuleSet#findMatchingRules(NormalizedCommand)}.
+     * @param bypassed Whether the player can bypass the rule.
+     */
+    public RuleExplanation(@NotNull final RuleSet ruleSet, @NotNull final Rule rule, @NotNull final NormalizedCommand command, final boolean caught, final boolean bypassed) {
+        this.rule = rule;
+        this.caught = caught;
+        this.bypassed = bypassed;
+
+        // Commands with a namespace are also listed by rules listing the command without it.
+        for(final String listedCommand : rule.getCommands()) {
+            final long start = System.nanoTime();
+            final boolean matched = CommandTrie.matches(listedCommand, command);
+            results.add(new FilterResult(FilterType.COMMAND, listedCommand, matched, System.nanoTime() - start));
+        }
+
+        for(final String containedString : rule.getContains()) {
+            final long start = System.nanoTime();
+            final boolean matched = command.getKey().contains(containedString);
+            results.add(new FilterResult(FilterType.CONTAINS, containedString, matched, System.nanoTime() - start));
+        }
+
+        // Each filter is compiled before timing starts, so only checking the command is timed.
+        for(final Pattern pattern : rule.getRegex()) {
+            final RegexAutomaton automaton = new RegexAutomaton(pattern, ruleSet.getSettings().getRegexEngine());
+            final long start = System.nanoTime();
+            final boolean matched = automaton.match(command.getKey())[0];
+            results.add(new FilterResult(FilterType.REGEX, pattern.pattern(), matched, System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Get the rule that was checked.
+     * @return Rule.
+     */
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Get if the player can bypass the rule.
+     * @return Whether the rule was bypassed.
+     */
+    public boolean isBypassed() {
+        return bypassed;
+    }
+
+    /**
+     * Get if the rule catches the command, without checking the player's permissions.
+     * @return Whether the rule catches the command.
+     */
+    public boolean isCaught() {
+        return caught;
+    }
+
+    /**
+     * Get if the rule blocks the command for the player.
+     * @return Whether the command is blocked.
+     */
+    public boolean isBlocking() {
+        return caught && !bypassed && rule.blocksCommands();
+    }
+
+    /**
+     * Get if the rule hides the command from the player's tab list.
+     * @return Whether the command is hidden.
+     */
+    public boolean isHiding() {
+        return caught && !bypassed && rule.hidesCommands();
+    }
+
+    /**
+     * Get the result of every filter of the rule.
+     * @return Filter results, in the order they were checked.
+     */
+    public List<FilterResult> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Gets the total time taken by every filter of a type.
+     * @param type Type of filter.
+     * @return Time in nanoseconds.
+     */
+    public long getTime(@NotNull final FilterType type) {
+        long time = 0;
+        for(final FilterResult result : results) {
+            if(result.getType() == type) {
+                time += result.getTime();
+            }
+        }
+
+        return time;
+    }
+
+    /**
+     * The kinds of filters a rule can have.
+     */
+    public enum FilterType {
+        COMMAND,
+        CONTAINS,
+        REGEX
+    }
+
+    /**
+     * The result of checking a single filter.
+     */
+    public static class FilterResult {
+        private final FilterType type;
+        private final String filter;
+        private final boolean matched;
+        private final long time;
+
+        /**
+         * Creates the result.
+         * @param type Type of the filter.
+         * @param filter The filter, as written in config.yml.
+         * @param matched Whether the filter matched the command.
+         * @param time Time taken to check the filter in nanoseconds.
+         */
+        private FilterResult(@NotNull final FilterType type, @NotNull final String filter, final boolean matched, final long time) {
+            this.type = type;
+            this.filter = filter;
+            this.matched = matched;
+            this.time = time;
+        }
+
+        /**
+         * Get the type of the filter.
+         * @return Filter type.
+         */
+        public FilterType getType() {
+            return type;
+        }
+
+        /**
+         * Get the filter, as written in config.yml.
+         * Commands and contained strings are shown normalized.
+         * @return Filter.
+         */
+        public String getFilter() {
+            return filter;
+        }
+
+        /**
+         * Get if the filter matched the command.
+         * @return Whether the filter matched.
+         */
+        public boolean isMatched() {
+            return matched;
+        }
+
+        /**
+         * Get how long checking the filter took.
+         * @return Time in nanoseconds.
+         */
+        public long getTime() {
+            return time;
+        }
+    }
+}
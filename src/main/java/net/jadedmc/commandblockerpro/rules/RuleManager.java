@@ -25,19 +25,25 @@
 package net.jadedmc.commandblockerpro.rules;
 
 import net.jadedmc.commandblockerpro.CommandBlockerProPlugin;
+import net.jadedmc.commandblockerpro.GlobalSettings;
+import net.jadedmc.commandblockerpro.utils.CommandUtils;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
+import java.util.logging.Logger;
 
 /**
  * Manages all rules set by the plugin.
  * These are stored in config.yml.
+ * Loaded rules are kept in an immutable RuleSet, which is replaced all at once when the rules are reloaded.
  */
 public class RuleManager {
     private final CommandBlockerProPlugin plugin;
-    private final Collection<Rule> rules = new HashSet<>();
+    private volatile RuleSet ruleSet = RuleSet.empty();
 
     /**
      * Creates the RuleManager.
@@ -50,24 +56,87 @@ public class RuleManager {
     }
 
     /**
-     * Clears the existing rules and loads them again from config.yml.
+     * Loads the rules again from the current config.yml and starts using them right away.
+     * Must be called on the server thread.
      */
     public void reloadRules() {
-        rules.clear();
+        setRuleSet(loadRules(plugin.getConfigManager().getConfig()));
+    }
 
-        final ConfigurationSection rulesSection = plugin.getConfigManager().getConfig().getConfigurationSection("rules");
-        if(rulesSection == null) {
-            return;
+    /**
+     * Loads and compiles every rule in a config, without using them yet.
+     * This does not touch the server, so it is safe to call from any thread.
+     * @param config Config to load the rules from.
+     * @return The loaded rules.
+     */
+    public RuleSet loadRules(@NotNull final FileConfiguration config) {
+        return loadRules(config, plugin.getLogger());
+    }
+
+    /**
+     * Loads and compiles every rule in a config, without a running server.
+     * Used by the plugin and by tools that check rules offline, so both compile rules the same way.
+     * @param config Config to load the rules from.
+     * @param logger Logger to report invalid settings and rules to.
+     * @return The loaded rules.
+     */
+    public static RuleSet loadRules(@NotNull final FileConfiguration config, @NotNull final Logger logger) {
+        // Load the settings shared by every rule first, reporting anything invalid.
+        final GlobalSettings settings = new GlobalSettings(config);
+        for(final String warning : settings.getWarnings()) {
+            logger.warning(warning);
         }
 
-        for(final String rule : rulesSection.getKeys(false)) {
-            final ConfigurationSection ruleSection = rulesSection.getConfigurationSection(rule);
-            if(ruleSection == null) {
-                continue;
+        final List<Rule> rules = new ArrayList<>();
+
+        final ConfigurationSection rulesSection = config.getConfigurationSection("rules");
+        if(rulesSection != null) {
+            for(final String rule : rulesSection.getKeys(false)) {
+                final ConfigurationSection ruleSection = rulesSection.getConfigurationSection(rule);
+                if(ruleSection == null) {
+                    continue;
+                }
+
+                final Rule loadedRule = new Rule(ruleSection, rules.size(), settings);
+
+                // Report anything that went wrong while loading the rule.
+                for(final String warning : loadedRule.getWarnings()) {
+                    logger.warning("Rule \"" + rule + "\": " + warning);
+                }
+
+                rules.add(loadedRule);
             }
+        }
 
-            rules.add(new Rule(ruleSection));
+        // Compile the new rules, which also starts them with empty caches, since results from the old rules no longer apply.
+        final RuleSet loadedRuleSet = new RuleSet(rules, settings);
+        for(final String warning : loadedRuleSet.getRegexWarnings()) {
+            logger.warning(warning);
         }
+
+        return loadedRuleSet;
+    }
+
+    /**
+     * Starts using a set of loaded rules, replacing the old ones all at once.
+     * Also updates the dummy commands of "MESSAGE" rules, so it must be called on the server thread.
+     * @param loadedRuleSet Rules to start using.
+     */
+    public void setRuleSet(@NotNull final RuleSet loadedRuleSet) {
+        ruleSet = loadedRuleSet;
+
+        // Register the dummy commands of every rule with the MESSAGE Rule Type, only changing the ones that differ from the old rules.
+        CommandUtils.updateDummyCommands(loadedRuleSet);
+    }
+
+    /**
+     * Get the currently loaded rules, along with everything compiled from them.
+     * Anything checking several things against the rules should get this once and keep using it,
+     * so a reload partway through can't mix old and new rules.
+     * @return Current Rule Set.
+     */
+    public RuleSet getRuleSet() {
+        return ruleSet;
     }
 
     /**
@@ -75,6 +144,15 @@ public class RuleManager {
      * @return All loaded rules, stored in a collection.
      */
     public Collection<Rule> getRules() {
-        return rules;
+        return ruleSet.getRules();
+    }
+
+    /**
+     * Gets a loaded rule by its id.
+     * @param id Id of the rule.
+     * @return The rule with that id.
+     */
+    public Rule getRule(final int id) {
+        return ruleSet.getRule(id);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,312 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import net.jadedmc.commandblockerpro.GlobalSettings;
+import net.jadedmc.commandblockerpro.StatsManager;
+import net.jadedmc.commandblockerpro.utils.MessageTemplate;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of every loaded rule, along with everything compiled from them to check commands quickly.
+ * A new snapshot is created each time the rules are reloaded, so checks that are already running keep using a complete,
+ * consistent set of rules. Nothing in a snapshot changes after it is created except its caches, which are thread-safe,
+ * so commands can be checked from any thread without locking.
+ */
+public class RuleSet {
+    private final List<Rule> rules;
+    private final CommandTrie commandTrie;
+    private final ContainsAutomaton containsAutomaton;
+    private final RegexAutomaton regexAutomaton;
+    private final BitSet blockingRules = new BitSet();
+    private final BitSet hidingRules = new BitSet();
+    private final MatchCache matchCache;
+    private final TabListCache tabListCache;
+    private final GlobalSettings settings;
+
+    /**
+     * Creates the snapshot, compiling the rules so they can all be checked at once.
+     * @param rules Rules to include, where the id of each rule is its position in the list.
+     * @param settings Global settings the rules were loaded with.
+     */
+    public RuleSet(@NotNull final List<Rule> rules, @NotNull final GlobalSettings settings) {
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+
+        for(final Rule rule : rules) {
+            blockingRules.set(rule.getId(), rule.blocksCommands());
+            hidingRules.set(rule.getId(), rule.hidesCommands());
+        }
+
+        this.commandTrie = new CommandTrie(rules);
+        this.containsAutomaton = new ContainsAutomaton(rules);
+        this.regexAutomaton = new RegexAutomaton(rules, settings.getRegexEngine());
+        this.matchCache = new MatchCache(settings.getMatchCacheSize());
+        this.tabListCache = new TabListCache(settings.getTabListCacheSize());
+        this.settings = settings;
+    }
+
+    /**
+     * Creates an empty snapshot, used before any rules are loaded.
+     * @return Snapshot without any rules.
+     */
+    public static RuleSet empty() {
+        return new RuleSet(Collections.emptyList(), new GlobalSettings(new MemoryConfiguration()));
+    }
+
+    /**
+     * Gets all rules in the snapshot, in the order they were loaded.
+     * @return All rules, stored in an unmodifiable list.
+     */
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Gets a rule by its id.
+     * @param id Id of the rule.
+     * @return The rule with that id.
+     */
+    public Rule getRule(final int id) {
+        return rules.get(id);
+    }
+
+    /**
+     * Get the block message shown when a rule blocks a command, parsed ahead of time.
+     * Uses the rule's own block message if it has one, otherwise the global block message.
+     * @param rule Rule to get the block message of.
+     * @return Parsed block message, or null if neither is set.
+     */
+    @Nullable
+    public MessageTemplate getBlockMessage(@NotNull final Rule rule) {
+        if(rule.getBlockMessageTemplate() != null) {
+            return rule.getBlockMessageTemplate();
+        }
+
+        return settings.getBlockMessageTemplate();
+    }
+
+    /**
+     * Get the global settings the rules were loaded with.
+     * @return Global Settings.
+     */
+    public GlobalSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Get the problems found while compiling the regex filters of the rules.
+     * @return Regex compile warnings.
+     */
+    public Collection<String> getRegexWarnings() {
+        return regexAutomaton.getWarnings();
+    }
+
+    /**
+     * Get the cache of which rules catch each command.
+     * @return Match Cache.
+     */
+    public MatchCache getMatchCache() {
+        return matchCache;
+    }
+
+    /**
+     * Get the cache of which commands are hidden from the tab list of each bypass profile.
+     * @return Tab List Cache.
+     */
+    public TabListCache getTabListCache() {
+        return tabListCache;
+    }
+
+    /**
+     * Gets every command that should be hidden from the tab list of a player with a given bypass profile.
+     * Results are cached, since they are the same for every player with the same profile and available commands.
+     * Each command is checked without the match cache, since the result is already cached here.
+     * @param profile Bypass profile of the player, created from this snapshot.
+     * @param commands Commands being sent to the player.
+     * @return Commands to hide, and how many each rule hides.
+     */
+    public HiddenCommands getHiddenCommands(@NotNull final BypassProfile profile, @NotNull final Collection<String> commands) {
+        // Copied, since the cache keeps the set and the server may change the original.
+        final Set<String> availableCommands = new HashSet<>(commands);
+
+        final HiddenCommands cached = tabListCache.get(profile, availableCommands);
+        if(cached != null) {
+            return cached;
+        }
+
+        final Set<String> hiddenCommands = new HashSet<>();
+        final int[] hideCounts = new int[rules.size()];
+        for(final String command : availableCommands) {
+            // Hide the command if any rule the player can't bypass hides it.
+            // The match cache isn't used, so a tab list of hundreds of commands can't push out the commands players actually use.
+            final BitSet hidingRules = profile.filter(getHidingRules(findMatchingRules(NormalizedCommand.parse(command))));
+            if(hidingRules.isEmpty()) {
+                continue;
+            }
+
+            hiddenCommands.add(command);
+            for(int ruleId = hidingRules.nextSetBit(0); ruleId >= 0; ruleId = hidingRules.nextSetBit(ruleId + 1)) {
+                hideCounts[ruleId]++;
+            }
+        }
+
+        final HiddenCommands result = new HiddenCommands(hiddenCommands, hideCounts);
+        tabListCache.put(profile, availableCommands, result);
+        return result;
+    }
+
+    /**
+     * Gets the ids of every rule that catches a command, without checking any player's permissions.
+     * Results are cached, since they are the same for every player.
+     * The returned BitSet is shared, and must not be modified.
+     * @param command Normalized command to check.
+     * @return Ids of the rules catching the command.
+     */
+    public BitSet getMatchingRules(@NotNull final NormalizedCommand command) {
+        return getMatchingRules(command, null);
+    }
+
+    /**
+     * Gets the ids of every rule that catches a command, recording each rule that caught it and whether the result was cached.
+     * The returned BitSet is shared, and must not be modified.
+     * @param command Normalized command to check.
+     * @param statsManager Stats manager to record the matching rules with, or null to not record them.
+     * @return Ids of the rules catching the command.
+     */
+    public BitSet getMatchingRules(@NotNull final NormalizedCommand command, @Nullable final StatsManager statsManager) {
+        final String matchKey = getMatchKey(command);
+        final BitSet cached = matchCache.get(matchKey);
+        if(cached != null) {
+            if(statsManager != null) {
+                statsManager.recordMatches(this, cached, true);
+            }
+            return cached;
+        }
+
+        final BitSet matchingRules = findMatchingRules(command);
+        matchCache.put(matchKey, matchingRules);
+        if(statsManager != null) {
+            statsManager.recordMatches(this, matchingRules, false);
+        }
+        return matchingRules;
+    }
+
+    /**
+     * Gets the key a command is cached under, which only includes the arguments that listed commands look at.
+     * If no rule lists a command with arguments, this is the same as the command's key.
+     * @param command Normalized command.
+     * @return Cache key of the command (ex: /lp user bob).
+     */
+    public String getMatchKey(@NotNull final NormalizedCommand command) {
+        return command.getKey(commandTrie.getDepth(command));
+    }
+
+    /**
+     * Gets the ids of every rule that catches a command, without using or filling the cache.
+     * Used to check commands without changing anything, such as with /cb test, and for tab lists, which have their own cache.
+     * @param command Normalized command to check.
+     * @return Ids of the rules catching the command.
+     */
+    public BitSet findMatchingRules(@NotNull final NormalizedCommand command) {
+        final CommandMatch match = match(command);
+        final BitSet matchingRules = new BitSet(rules.size());
+        for(final Rule rule : rules) {
+            if(rule.matches(match)) {
+                matchingRules.set(rule.getId());
+            }
+        }
+
+        return matchingRules;
+    }
+
+    /**
+     * Gets the ids of every rule that would block a command for a player without their bypass permission.
+     * @param command Normalized command to check.
+     * @return Ids of the rules blocking the command.
+     */
+    public BitSet getBlockingRules(@NotNull final NormalizedCommand command) {
+        return getBlockingRules(getMatchingRules(command));
+    }
+
+    /**
+     * Gets the ids of the rules, out of those catching a command, that would block it.
+     * Used when the matching rules are already known, so they don't need to be found again.
+     * @param matchingRules Ids of the rules catching the command, which are not changed.
+     * @return Ids of the rules blocking the command.
+     */
+    public BitSet getBlockingRules(@NotNull final BitSet matchingRules) {
+        final BitSet result = (BitSet) matchingRules.clone();
+        result.and(blockingRules);
+        return result;
+    }
+
+    /**
+     * Gets the ids of every rule that would hide a command for a player without their bypass permission.
+     * @param command Normalized command to check.
+     * @return Ids of the rules hiding the command.
+     */
+    public BitSet getHidingRules(@NotNull final NormalizedCommand command) {
+        return getHidingRules(getMatchingRules(command));
+    }
+
+    /**
+     * Gets the ids of the rules, out of those catching a command, that would hide it.
+     * Used when the matching rules are already known, so they don't need to be found again.
+     * @param matchingRules Ids of the rules catching the command, which are not changed.
+     * @return Ids of the rules hiding the command.
+     */
+    public BitSet getHidingRules(@NotNull final BitSet matchingRules) {
+        final BitSet result = (BitSet) matchingRules.clone();
+        result.and(hidingRules);
+        return result;
+    }
+
+    /**
+     * Checks a command against the filters of every rule at once.
+     * @param command Normalized command to check.
+     * @return Result of the check, which is passed to the rules.
+     */
+    public CommandMatch match(@NotNull final NormalizedCommand command) {
+        return new CommandMatch(command, rules, commandTrie.match(command), containsAutomaton.match(command.getKey()), regexAutomaton.match(command.getKey()));
+    }
+
+    /**
+     * Get the trie of every rule's listed commands.
+     * @return Command Trie.
+     */
+    public CommandTrie getCommandTrie() {
+        return commandTrie;
+    }
+}
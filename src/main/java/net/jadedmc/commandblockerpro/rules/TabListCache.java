@@ -0,0 +1,158 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe, least recently used cache of which commands are hidden from the tab list.
+ * Players with the same bypass profile who are sent the same commands always have the same commands hidden,
+ * so the result is only worked out once for each combination.
+ */
+public class TabListCache {
+    private final Map<Key, HiddenCommands> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates the cache.
+     * @param maxSize Maximum number of combinations to remember. 0 disables the cache.
+     */
+    public TabListCache(final int maxSize) {
+        this.cache = new LinkedHashMap<Key, HiddenCommands>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, HiddenCommands> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get the commands hidden from players with a bypass profile, if they have been cached.
+     * @param profile Bypass profile of the player.
+     * @param commands Commands being sent to the player.
+     * @return Commands to hide, or null if not cached.
+     */
+    @Nullable
+    public HiddenCommands get(@NotNull final BypassProfile profile, @NotNull final Set<String> commands) {
+        final HiddenCommands hiddenCommands;
+        synchronized (cache) {
+            hiddenCommands = cache.get(new Key(profile, commands));
+        }
+
+        if(hiddenCommands == null) {
+            misses.increment();
+        }
+        else {
+            hits.increment();
+        }
+
+        return hiddenCommands;
+    }
+
+    /**
+     * Caches the commands hidden from players with a bypass profile.
+     * @param profile Bypass profile of the player.
+     * @param commands Commands being sent to the player, which must not be modified afterward.
+     * @param hiddenCommands Commands to hide.
+     */
+    public void put(@NotNull final BypassProfile profile, @NotNull final Set<String> commands, @NotNull final HiddenCommands hiddenCommands) {
+        synchronized (cache) {
+            cache.put(new Key(profile, commands), hiddenCommands);
+        }
+    }
+
+    /**
+     * Get the number of lookups that found a cached combination.
+     * @return Number of cache hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups that did not find a cached combination.
+     * @return Number of cache misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of combinations currently cached.
+     * @return Size of the cache.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * A bypass profile paired with the commands sent to the player.
+     */
+    private static final class Key {
+        private final BypassProfile profile;
+        private final Set<String> commands;
+        private final int hash;
+
+        /**
+         * Creates the key.
+         * @param profile Bypass profile of the player.
+         * @param commands Commands being sent to the player.
+         */
+        private Key(@NotNull final BypassProfile profile, @NotNull final Set<String> commands) {
+            this.profile = profile;
+            this.commands = commands;
+            this.hash = Objects.hash(profile, commands);
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if(this == object) {
+                return true;
+            }
+
+            if(!(object instanceof Key)) {
+                return false;
+            }
+
+            final Key other = (Key) object;
+            return hash == other.hash && profile.equals(other.profile) && commands.equals(other.commands);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.tools;
+
+import net.jadedmc.commandblockerpro.rules.BypassProfile;
+import net.jadedmc.commandblockerpro.rules.NormalizedCommand;
+import net.jadedmc.commandblockerpro.rules.RuleSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.BitSet;
+
+/**
+ * What the rules do with a command, used by tools that check rules without a server.
+ */
+public enum Decision {
+    /**
+     * The command can be used and is shown in the tab list.
+     */
+    ALLOW,
+
+    /**
+     * The command can be used, but is hidden from the tab list.
+     */
+    HIDE,
+
+    /**
+     * The command is blocked.
+     */
+    BLOCK;
+
+    /**
+     * Works out what the rules do with a command, the same way the listeners do.
+     * @param ruleSet Rules to check the command against.
+     * @param profile Bypass profile of the player, created from the rule set.
+     * @param command Command to check.
+     * @return Decision for the command.
+     */
+    public static Decision evaluate(@NotNull final RuleSet ruleSet, @NotNull final BypassProfile profile, @NotNull final NormalizedCommand command) {
+        // The matching rules are only found once, since they may not be cached.
+        final BitSet matchingRules = ruleSet.getMatchingRules(command);
+        if(!profile.filter(ruleSet.getBlockingRules(matchingRules)).isEmpty()) {
+            return BLOCK;
+        }
+
+        if(!profile.filter(ruleSet.getHidingRules(matchingRules)).isEmpty()) {
+            return HIDE;
+        }
+
+        return ALLOW;
+    }
+}
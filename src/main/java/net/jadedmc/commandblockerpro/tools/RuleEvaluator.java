@@ -0,0 +1,215 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.tools;
+
+import net.jadedmc.commandblockerpro.rules.BypassProfile;
+import net.jadedmc.commandblockerpro.rules.NormalizedCommand;
+import net.jadedmc.commandblockerpro.rules.RuleManager;
+import net.jadedmc.commandblockerpro.rules.RuleSet;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Checks a list of commands against the rules of a config.yml without a server, using every CPU core.
+ * Used to test rule changes against a large number of commands, such as in a CI pipeline.
+ * <p>
+ * Usage: java -cp CommandBlockerPro.jar:spigot-api.jar net.jadedmc.commandblockerpro.tools.RuleEvaluator &lt;config.yml&gt; [commands file]
+ * <p>
+ * Commands are read from the file, or from standard input if no file is given (or it is "-"), one per line.
+ * Each line is the command, optionally followed by a tab and a comma-separated list of the permissions the player has:
+ * <pre>/gamemode creative	commandblocker.bypass.gamemode,essentials.fly</pre>
+ * Each line is printed back with ALLOW, HIDE, or BLOCK and a tab in front, in the same order.
+ * A summary is printed to standard error. Empty lines and lines starting with '#' are skipped.
+ * The Spigot API and its libraries must be on the classpath, since config.yml is loaded with it.
+ */
+public class RuleEvaluator {
+    private static final int BATCH_SIZE = 65536;
+
+    private final RuleSet ruleSet;
+    private final Map<String, BypassProfile> profiles = new ConcurrentHashMap<>();
+    private final Map<Decision, LongAdder> decisions = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the evaluator.
+     * @param ruleSet Rules to check commands against.
+     */
+    public RuleEvaluator(@NotNull final RuleSet ruleSet) {
+        this.ruleSet = ruleSet;
+
+        for(final Decision decision : Decision.values()) {
+            decisions.put(decision, new LongAdder());
+        }
+    }
+
+    /**
+     * Runs the tool.
+     * @param args config.yml, then optionally the commands file.
+     */
+    public static void main(final String[] args) {
+        if(args.length < 1 || args.length > 2) {
+            System.err.println("Usage: RuleEvaluator <config.yml> [commands file]");
+            System.exit(2);
+            return;
+        }
+
+        final File configFile = new File(args[0]);
+        if(!configFile.isFile()) {
+            System.err.println(configFile.getPath() + " does not exist");
+            System.exit(1);
+            return;
+        }
+
+        // Rules are compiled the same way as the plugin. The shared match cache is turned off, which skips its lock entirely,
+        // so worker threads never wait on each other. It does not change any decisions.
+        final YamlConfiguration config = YamlConfiguration.loadConfiguration(configFile);
+        config.set("matchCacheSize", 0);
+        final RuleEvaluator evaluator = new RuleEvaluator(RuleManager.loadRules(config, Logger.getLogger("CommandBlockerPro")));
+
+        final boolean useStandardInput = args.length < 2 || args[1].equals("-");
+        try(final InputStream input = useStandardInput ? System.in : new FileInputStream(args[1]);
+            final Writer output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 65536)) {
+            final long start = System.nanoTime();
+            final long evaluated = evaluator.evaluateAll(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), output);
+            evaluator.printSummary(evaluated, System.nanoTime() - start);
+        }
+        catch (IOException exception) {
+            System.err.println("Could not evaluate commands: " + exception.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Checks every command read from a reader, writing each line back with its decision.
+     * Lines are read in batches, and each batch is checked in parallel, so memory use doesn't grow with the input.
+     * @param reader Lines to check.
+     * @param writer Where to write the results.
+     * @return Number of commands checked.
+     * @throws IOException If the commands could not be read or the results could not be written.
+     */
+    public long evaluateAll(@NotNull final BufferedReader reader, @NotNull final Writer writer) throws IOException {
+        final List<String> batch = new ArrayList<>(BATCH_SIZE);
+        long evaluated = 0;
+
+        String line;
+        while((line = reader.readLine()) != null) {
+            if(line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            batch.add(line);
+            if(batch.size() == BATCH_SIZE) {
+                evaluated += evaluateBatch(batch, writer);
+            }
+        }
+
+        return evaluated + evaluateBatch(batch, writer);
+    }
+
+    /**
+     * Checks a batch of lines in parallel, writing the results in the original order, then empties the batch.
+     * @param batch Lines to check.
+     * @param writer Where to write the results.
+     * @return Number of commands checked.
+     * @throws IOException If the results could not be written.
+     */
+    private long evaluateBatch(@NotNull final List<String> batch, @NotNull final Writer writer) throws IOException {
+        final Decision[] results = batch.parallelStream().map(this::evaluate).toArray(Decision[]::new);
+        for(int index = 0; index < results.length; index++) {
+            writer.write(results[index].name());
+            writer.write('\t');
+            writer.write(batch.get(index));
+            writer.write('\n');
+        }
+
+        final int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    /**
+     * Checks a single line.
+     * @param line Command, optionally followed by a tab and the player's permissions.
+     * @return Decision for the command.
+     */
+    public Decision evaluate(@NotNull final String line) {
+        final int separator = line.indexOf('\t');
+        final String command = separator < 0 ? line : line.substring(0, separator);
+        final String permissions = separator < 0 ? "" : line.substring(separator + 1);
+
+        // Players with the same permissions share a profile.
+        final BypassProfile profile = profiles.computeIfAbsent(permissions, this::createProfile);
+        final Decision decision = Decision.evaluate(ruleSet, profile, NormalizedCommand.parse(command));
+        decisions.get(decision).increment();
+        return decision;
+    }
+
+    /**
+     * Creates the bypass profile of a player with a list of permissions.
+     * @param permissions Comma-separated permissions.
+     * @return Bypass profile.
+     */
+    private BypassProfile createProfile(@NotNull final String permissions) {
+        final Set<String> granted = new HashSet<>();
+        for(final String permission : permissions.split(",")) {
+            if(!permission.trim().isEmpty()) {
+                granted.add(permission.trim());
+            }
+        }
+
+        return new BypassProfile(granted::contains, ruleSet);
+    }
+
+    /**
+     * Prints how many commands were checked, what was decided, and how long it took.
+     * @param evaluated Number of commands checked.
+     * @param time Time taken in nanoseconds.
+     */
+    private void printSummary(final long evaluated, final long time) {
+        final double seconds = time / 1_000_000_000.0;
+        System.err.println(String.format(Locale.ROOT, "Checked %d commands against %d rules in %.2fs (%.0f commands/s, %d threads).",
+                evaluated, ruleSet.getRules().size(), seconds, seconds > 0 ? evaluated / seconds : 0, Runtime.getRuntime().availableProcessors()));
+        System.err.println(decisions.get(Decision.ALLOW).sum() + " allowed, " + decisions.get(Decision.HIDE).sum() + " hidden, " + decisions.get(Decision.BLOCK).sum() + " blocked.");
+    }
+}
@@ -0,0 +1,412 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.tools;
+
+import net.jadedmc.commandblockerpro.TrafficRecorder;
+import net.jadedmc.commandblockerpro.rules.BypassProfile;
+import net.jadedmc.commandblockerpro.rules.CommandTrie;
+import net.jadedmc.commandblockerpro.rules.NormalizedCommand;
+import net.jadedmc.commandblockerpro.rules.Rule;
+import net.jadedmc.commandblockerpro.rules.RuleManager;
+import net.jadedmc.commandblockerpro.rules.RuleSet;
+import net.jadedmc.commandblockerpro.utils.LatencyHistogram;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * Replays a recording made by the TrafficRecorder through the rules of one or two config.yml files, without a server.
+ * Reports how quickly the rules checked the recorded commands, and every command the two configs disagree on.
+ * <p>
+ * Usage: java -cp CommandBlockerPro.jar:spigot-api.jar net.jadedmc.commandblockerpro.tools.TrafficReplay &lt;recording&gt; &lt;config.yml&gt; [other config.yml]
+ * <p>
+ * The Spigot API and its libraries must be on the classpath, since config.yml is loaded with it.
+ */
+public class TrafficReplay {
+    private static final int MAX_PRINTED_DIFFS = 20;
+    private static final int MAX_DISTINCT_DIFFS = 100000;
+
+    private final List<Replay> replays = new ArrayList<>();
+    private final Map<Integer, Set<String>> profiles = new HashMap<>();
+    private final List<RecordedRules> recordedRules = new ArrayList<>();
+    private final Map<Decision, Integer> diffCounts = new HashMap<>();
+    private final Map<String, Long> diffs = new HashMap<>();
+    private long commands = 0;
+    private long tabLists = 0;
+    private long tabListCommands = 0;
+    private long skipped = 0;
+    private long totalDiffs = 0;
+    private boolean truncated = false;
+
+    /**
+     * Runs the tool.
+     * @param args Recording, then one or two config.yml files.
+     */
+    public static void main(final String[] args) {
+        if(args.length < 2 || args.length > 3) {
+            System.err.println("Usage: TrafficReplay <recording> <config.yml> [other config.yml]");
+            System.exit(2);
+            return;
+        }
+
+        final TrafficReplay replay = new TrafficReplay();
+        try {
+            for(int arg = 1; arg < args.length; arg++) {
+                replay.addConfig(new File(args[arg]));
+            }
+
+            final long start = System.nanoTime();
+            replay.replay(new File(args[0]));
+            replay.printReport(System.nanoTime() - start);
+        }
+        catch (IOException exception) {
+            System.err.println("Could not replay " + args[0] + ": " + exception.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Loads the rules of a config.yml, with the same code the plugin uses.
+     * @param configFile config.yml to load.
+     * @throws IOException If the file could not be read.
+     */
+    public void addConfig(@NotNull final File configFile) throws IOException {
+        if(!configFile.isFile()) {
+            throw new IOException(configFile.getPath() + " does not exist");
+        }
+
+        final RuleSet ruleSet = RuleManager.loadRules(YamlConfiguration.loadConfiguration(configFile), Logger.getLogger("CommandBlockerPro"));
+        replays.add(new Replay(configFile.getPath(), ruleSet));
+    }
+
+    /**
+     * Streams every record in a recording through the loaded rules.
+     * @param recording Recording to replay.
+     * @throws IOException If the recording could not be read.
+     */
+    public void replay(@NotNull final File recording) throws IOException {
+        try(final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(recording), 65536))) {
+            if(input.readInt() != TrafficRecorder.MAGIC) {
+                throw new IOException("not a CommandBlockerPro recording");
+            }
+
+            final int version = input.readInt();
+            if(version != TrafficRecorder.VERSION) {
+                throw new IOException("unsupported recording version " + version);
+            }
+
+            byte[] buffer = new byte[256];
+            while(true) {
+                // Recordings end without a marker.
+                final int length;
+                try {
+                    length = input.readInt();
+                }
+                catch (EOFException exception) {
+                    break;
+                }
+
+                if(length < 0) {
+                    throw new IOException("invalid record length " + length);
+                }
+                if(length > buffer.length) {
+                    buffer = new byte[length];
+                }
+
+                // The last record may be cut off if the server crashed while recording.
+                try {
+                    input.readFully(buffer, 0, length);
+                }
+                catch (EOFException exception) {
+                    truncated = true;
+                    break;
+                }
+
+                readRecord(new DataInputStream(new ByteArrayInputStream(buffer, 0, length)));
+            }
+        }
+    }
+
+    /**
+     * Reads a single record, checking it against the rules if it is a command.
+     * @param record Contents of the record.
+     * @throws IOException If the record is invalid.
+     */
+    private void readRecord(@NotNull final DataInputStream record) throws IOException {
+        final byte type = record.readByte();
+        record.readLong();
+        final int profileId = record.readInt();
+
+        switch (type) {
+            case TrafficRecorder.PROFILE:
+                final int permissionCount = record.readInt();
+                final Set<String> permissions = new HashSet<>();
+                for(int permission = 0; permission < permissionCount; permission++) {
+                    permissions.add(record.readUTF());
+                }
+                profiles.put(profileId, Collections.unmodifiableSet(permissions));
+                return;
+
+            case TrafficRecorder.COMMAND:
+                replayCommand(profileId, NormalizedCommand.parse(record.readUTF()));
+                return;
+
+            case TrafficRecorder.TAB_LIST:
+                tabLists++;
+                tabListCommands += record.readInt();
+                return;
+
+            case TrafficRecorder.RULES:
+                final RecordedRules rules = new RecordedRules(readStrings(record), readStrings(record));
+                if(!recordedRules.contains(rules)) {
+                    recordedRules.add(rules);
+                }
+                return;
+
+            // Records from newer versions of the recorder are skipped.
+            default:
+                skipped++;
+        }
+    }
+
+    /**
+     * Reads a list of Strings, written as the number of Strings followed by each one as UTF.
+     * @param record Contents of the record.
+     * @return Strings read.
+     * @throws IOException If the record is invalid.
+     */
+    private static Set<String> readStrings(@NotNull final DataInputStream record) throws IOException {
+        final int count = record.readInt();
+        final Set<String> strings = new TreeSet<>();
+        for(int index = 0; index < count; index++) {
+            strings.add(record.readUTF());
+        }
+
+        return strings;
+    }
+
+    /**
+     * Checks a recorded command against every loaded config, recording how long each took and any differences.
+     * @param profileId Permission profile of the player who used the command.
+     * @param command Command the player used.
+     */
+    private void replayCommand(final int profileId, @NotNull final NormalizedCommand command) {
+        final Set<String> permissions = profiles.getOrDefault(profileId, Collections.emptySet());
+        commands++;
+
+        Decision firstDecision = null;
+        for(final Replay replay : replays) {
+            final BypassProfile profile = replay.profiles.computeIfAbsent(profileId, id -> new BypassProfile(permissions::contains, replay.ruleSet));
+
+            final long start = System.nanoTime();
+            final Decision decision = Decision.evaluate(replay.ruleSet, profile, command);
+            final long time = System.nanoTime() - start;
+
+            replay.times.record(time);
+            replay.totalTime += time;
+            replay.decisions.merge(decision, 1L, Long::sum);
+
+            if(firstDecision == null) {
+                firstDecision = decision;
+            }
+            else if(decision != firstDecision) {
+                totalDiffs++;
+                diffCounts.merge(decision, 1, Integer::sum);
+
+                // The same command usually differs many times, so each distinct difference is counted.
+                final String diff = command.getKey(Integer.MAX_VALUE) + " " + permissions + ": " + firstDecision + " -> " + decision;
+                if(diffs.size() < MAX_DISTINCT_DIFFS || diffs.containsKey(diff)) {
+                    diffs.merge(diff, 1L, Long::sum);
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints the results of the replay.
+     * @param wallTime Time the whole replay took in nanoseconds, including reading the recording.
+     */
+    private void printReport(final long wallTime) {
+        System.out.println("Replayed " + commands + " commands from " + profiles.size() + " permission profiles in " + formatMillis(wallTime) + ".");
+        System.out.println("Tab lists: " + tabLists + (tabLists > 0 ? String.format(Locale.ROOT, " (%.1f commands on average)", tabListCommands / (double) tabLists) : ""));
+        if(skipped > 0) {
+            System.out.println("Skipped " + skipped + " records of unknown types.");
+        }
+        if(truncated) {
+            System.out.println("The recording ends with an incomplete record, which was ignored.");
+        }
+        printWarnings();
+
+        for(final Replay replay : replays) {
+            System.out.println();
+            System.out.println(replay.name + " (" + replay.ruleSet.getRules().size() + " rules)");
+
+            final double seconds = replay.totalTime / 1_000_000_000.0;
+            System.out.println(String.format(Locale.ROOT, "  Throughput: %.0f commands/s", seconds > 0 ? commands / seconds : 0));
+            System.out.println("  Latency: p50 " + replay.times.getPercentile(0.5) + "ns, p90 " + replay.times.getPercentile(0.9) + "ns, p99 " + replay.times.getPercentile(0.99) + "ns, max " + replay.times.getPercentile(1.0) + "ns");
+            System.out.println("  Match cache: " + replay.ruleSet.getMatchCache().getHits() + " hits, " + replay.ruleSet.getMatchCache().getMisses() + " misses");
+            System.out.println("  Decisions: " + replay.decisions.getOrDefault(Decision.ALLOW, 0L) + " allowed, " + replay.decisions.getOrDefault(Decision.HIDE, 0L) + " hidden, " + replay.decisions.getOrDefault(Decision.BLOCK, 0L) + " blocked");
+        }
+
+        if(replays.size() < 2) {
+            return;
+        }
+
+        System.out.println();
+        System.out.println(totalDiffs + " commands have different decisions (" + diffCounts.getOrDefault(Decision.ALLOW, 0) + " now allowed, " + diffCounts.getOrDefault(Decision.HIDE, 0) + " now hidden, " + diffCounts.getOrDefault(Decision.BLOCK, 0) + " now blocked).");
+
+        // Show the most common differences first.
+        final List<Map.Entry<String, Long>> sortedDiffs = new ArrayList<>(diffs.entrySet());
+        sortedDiffs.sort((first, second) -> Long.compare(second.getValue(), first.getValue()));
+        for(final Map.Entry<String, Long> diff : sortedDiffs.subList(0, Math.min(MAX_PRINTED_DIFFS, sortedDiffs.size()))) {
+            System.out.println("  " + diff.getValue() + "x " + diff.getKey());
+        }
+        if(sortedDiffs.size() > MAX_PRINTED_DIFFS) {
+            System.out.println("  ... and " + (sortedDiffs.size() - MAX_PRINTED_DIFFS) + " more distinct differences.");
+        }
+    }
+
+    /**
+     * Warns about anything in the loaded configs that the recording can't show, since decisions depending on it may be wrong.
+     * Recordings only keep the bypass permissions, and the arguments, that the rules they were made with look at.
+     */
+    private void printWarnings() {
+        if(recordedRules.isEmpty()) {
+            System.out.println("Warning: the recording does not list the rules it was made with. Bypass permissions and arguments the rules");
+            System.out.println("  check may be missing from it, so decisions that depend on them may be wrong.");
+            return;
+        }
+
+        for(final Replay replay : replays) {
+            final Set<String> missingPermissions = new TreeSet<>();
+            final Set<String> missingCommands = new TreeSet<>();
+            for(final Rule rule : replay.ruleSet.getRules()) {
+                for(final RecordedRules rules : recordedRules) {
+                    if(!rule.getBypassPermission().isEmpty() && !rules.permissions.contains(rule.getBypassPermission())) {
+                        missingPermissions.add(rule.getBypassPermission());
+                    }
+
+                    for(final String listedCommand : rule.getCommands()) {
+                        if(listedCommand.indexOf(' ') >= 0 && !rules.trie.keepsWords(listedCommand)) {
+                            missingCommands.add(listedCommand);
+                        }
+                    }
+                }
+            }
+
+            if(!missingPermissions.isEmpty()) {
+                System.out.println("Warning: " + replay.name + " uses bypass permissions the recording did not keep, so every recorded player is treated as");
+                System.out.println("  not having them: " + String.join(", ", missingPermissions));
+            }
+            if(!missingCommands.isEmpty()) {
+                System.out.println("Warning: " + replay.name + " lists commands with arguments the recording did not keep, so they may not match");
+                System.out.println("  recorded commands: " + String.join(", ", missingCommands));
+            }
+        }
+    }
+
+    /**
+     * Formats a duration in milliseconds.
+     * @param nanos Duration in nanoseconds.
+     * @return Formatted duration.
+     */
+    private static String formatMillis(final long nanos) {
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * What the rules a recording was made with look at, read from a rules record.
+     */
+    private static final class RecordedRules {
+        private final Set<String> permissions;
+        private final Set<String> listedCommands;
+        private final CommandTrie trie;
+
+        /**
+         * Creates the recorded rules.
+         * @param permissions Bypass permissions the rules use.
+         * @param listedCommands Listed commands with arguments.
+         */
+        private RecordedRules(@NotNull final Set<String> permissions, @NotNull final Set<String> listedCommands) {
+            this.permissions = permissions;
+            this.listedCommands = listedCommands;
+            this.trie = new CommandTrie(listedCommands);
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if(!(object instanceof RecordedRules)) {
+                return false;
+            }
+
+            final RecordedRules other = (RecordedRules) object;
+            return permissions.equals(other.permissions) && listedCommands.equals(other.listedCommands);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * permissions.hashCode() + listedCommands.hashCode();
+        }
+    }
+
+    /**
+     * The rules of one config.yml, and the results of replaying commands through them.
+     */
+    private static final class Replay {
+        private final String name;
+        private final RuleSet ruleSet;
+        private final Map<Integer, BypassProfile> profiles = new HashMap<>();
+        private final Map<Decision, Long> decisions = new HashMap<>();
+        private final LatencyHistogram times = new LatencyHistogram();
+        private long totalTime = 0;
+
+        /**
+         * Creates the replay.
+         * @param name Name of the config.
+         * @param ruleSet Rules loaded from the config.
+         */
+        private Replay(@NotNull final String name, @NotNull final RuleSet ruleSet) {
+            this.name = name;
+            this.ruleSet = ruleSet;
+        }
+    }
+}
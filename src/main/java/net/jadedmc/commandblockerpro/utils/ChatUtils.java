@@ -24,24 +24,23 @@
  */
 package net.jadedmc.commandblockerpro.utils;
 
-import me.clip.placeholderapi.PlaceholderAPI;
 import net.jadedmc.commandblockerpro.CommandBlockerProPlugin;
+import net.jadedmc.commandblockerpro.PlaceholderManager;
 import net.kyori.adventure.platform.bukkit.BukkitAudiences;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * A collection of chat-related utility methods.
  */
 public class ChatUtils {
     private static BukkitAudiences adventure;
     private static CommandBlockerProPlugin plugin;
+    private static final String[] LEGACY_CODES = createLegacyCodes();
 
     /**
      * Creates an instance of adventure using an instance of the plugin.
@@ -73,6 +72,34 @@ public class ChatUtils {
         adventure.sender(sender).sendMessage(translate(message));
     }
 
+    /**
+     * Sends a CommandSender a message that has already been translated.
+     * @param sender CommandSender to send message to.
+     * @param message The message being sent.
+     */
+    public static void chat(@NotNull final CommandSender sender, @NotNull final Component message) {
+        adventure.sender(sender).sendMessage(message);
+    }
+
+    /**
+     * Replaces the PlaceholderAPI placeholders in a message with their values for a player.
+     * Values are remembered for a short time, so sending the same message repeatedly is fast.
+     * @param player Player to get the values for.
+     * @param message Message to set placeholders in.
+     * @return Message with the placeholders set.
+     */
+    public static String setPlaceholders(@NotNull final Player player, @NotNull final String message) {
+        return plugin.getPlaceholderManager().setPlaceholders(player, message);
+    }
+
+    /**
+     * Get if messages sent to players have PlaceholderAPI placeholders set.
+     * @return Whether PlaceholderAPI is installed.
+     */
+    public static boolean usesPlaceholders() {
+        return plugin.getHookManager().usePlaceholderAPI();
+    }
+
     /**
      * A quick way to send a Player a colored message.
      * Supports PlaceholderAPI placeholders if installed.
@@ -81,8 +108,8 @@ public class ChatUtils {
      */
     public static void chat(@NotNull final Player player, @NotNull String message) {
         // Translates placeholders if needed.
-        if(plugin.getHookManager().usePlaceholderAPI()) {
-            message = PlaceholderAPI.setPlaceholders(player, message);
+        if(plugin.getHookManager().usePlaceholderAPI() && !PlaceholderManager.findPlaceholders(message).isEmpty()) {
+            message = setPlaceholders(player, message);
         }
 
         // Sends the message to the player.
@@ -98,47 +125,109 @@ public class ChatUtils {
         return MiniMessage.miniMessage().deserialize(replaceLegacy(message));
     }
 
+    /**
+     * Translates a message to a String using '§' color codes, for places that don't support components, such as kick messages.
+     * @param message Message to translate.
+     * @return Translated Message.
+     */
+    public static String toLegacy(@NotNull final String message) {
+        return LegacyComponentSerializer.legacySection().serialize(translate(message));
+    }
+
     /**
      * Replaces the legacy color codes used in a message with their MiniMessage counterparts.
+     * Handles hex colors (&#rrggbb), color and format codes (&c or §c), and escaped new lines (\\n) in a single pass.
      * @param message Message to replace color codes in.
      * @return Message with the color codes replaced.
      */
-    public static String replaceLegacy(@NotNull String message) {
+    public static String replaceLegacy(@NotNull final String message) {
+        final int length = message.length();
+        final StringBuilder builder = new StringBuilder(length + 32);
+
+        int i = 0;
+        while(i < length) {
+            final char character = message.charAt(i);
+            final char next = i + 1 < length ? message.charAt(i + 1) : 0;
+
+            // Hex colors only use '&', since '§' is replaced after them.
+            if(character == '&' && next == '#' && isHexColor(message, i + 2)) {
+                builder.append("<reset><color:").append(message, i + 1, i + 8).append('>');
+                i += 8;
+                continue;
+            }
+
+            // Escaped new lines.
+            if(character == '\\' && next == 'n') {
+                builder.append("<newline>");
+                i += 2;
+                continue;
+            }
+
+            // Color and format codes.
+            if((character == '&' || character == '§') && next < LEGACY_CODES.length && LEGACY_CODES[next] != null) {
+                builder.append(LEGACY_CODES[next]);
+                i += 2;
+                continue;
+            }
+
+            // Any other '§' is still replaced with '&'.
+            builder.append(character == '§' ? '&' : character);
+            i++;
+        }
 
-        Pattern pattern = Pattern.compile("&#[a-fA-F0-9]{6}");
-        Matcher matcher = pattern.matcher(message);
+        return builder.toString();
+    }
+
+    /**
+     * Checks if the six characters at a position in a message are hexadecimal digits.
+     * @param message Message to check.
+     * @param start Position of the first digit.
+     * @return Whether there are six hexadecimal digits at the position.
+     */
+    private static boolean isHexColor(@NotNull final String message, final int start) {
+        if(start + 6 > message.length()) {
+            return false;
+        }
 
-        while (matcher.find()) {
-            String color = message.substring(matcher.start() + 1, matcher.end());
-            message = message.replace("&" + color, "<reset><color:" + color + ">");
-            matcher = pattern.matcher(message);
+        for(int i = start; i < start + 6; i++) {
+            final char character = message.charAt(i);
+            final boolean isHex = (character >= '0' && character <= '9') || (character >= 'a' && character <= 'f') || (character >= 'A' && character <= 'F');
+            if(!isHex) {
+                return false;
+            }
         }
 
-        // Then replace legacy color codes.
-        return message
-                .replace("\\n", "<newline>")
-                .replace("§", "&")
-                .replace("&0", "<reset><black>")
-                .replace("&1", "<reset><dark_blue>")
-                .replace("&2", "<reset><dark_green>")
-                .replace("&3", "<reset><dark_aqua>")
-                .replace("&4", "<reset><dark_red>")
-                .replace("&5", "<reset><dark_purple>")
-                .replace("&6", "<reset><gold>")
-                .replace("&7", "<reset><gray>")
-                .replace("&8", "<reset><dark_gray>")
-                .replace("&9", "<reset><blue>")
-                .replace("&a", "<reset><green>")
-                .replace("&b", "<reset><aqua>")
-                .replace("&c", "<reset><red>")
-                .replace("&d", "<reset><light_purple>")
-                .replace("&e", "<reset><yellow>")
-                .replace("&f", "<reset><white>")
-                .replace("&k", "<obfuscated>")
-                .replace("&l", "<bold>")
-                .replace("&m", "<strikethrough>")
-                .replace("&n", "<u>")
-                .replace("&o", "<i>")
-                .replace("&r", "<reset>");
+        return true;
+    }
+
+    /**
+     * Creates the table of legacy codes, indexed by the character after the '&'.
+     * @return MiniMessage counterpart of each legacy code, or null for characters that aren't codes.
+     */
+    private static String[] createLegacyCodes() {
+        final String[] codes = new String[128];
+        codes['0'] = "<reset><black>";
+        codes['1'] = "<reset><dark_blue>";
+        codes['2'] = "<reset><dark_green>";
+        codes['3'] = "<reset><dark_aqua>";
+        codes['4'] = "<reset><dark_red>";
+        codes['5'] = "<reset><dark_purple>";
+        codes['6'] = "<reset><gold>";
+        codes['7'] = "<reset><gray>";
+        codes['8'] = "<reset><dark_gray>";
+        codes['9'] = "<reset><blue>";
+        codes['a'] = "<reset><green>";
+        codes['b'] = "<reset><aqua>";
+        codes['c'] = "<reset><red>";
+        codes['d'] = "<reset><light_purple>";
+        codes['e'] = "<reset><yellow>";
+        codes['f'] = "<reset><white>";
+        codes['k'] = "<obfuscated>";
+        codes['l'] = "<bold>";
+        codes['m'] = "<strikethrough>";
+        codes['n'] = "<u>";
+        codes['o'] = "<i>";
+        codes['r'] = "<reset>";
+        return codes;
     }
 }
\ No newline at end of file
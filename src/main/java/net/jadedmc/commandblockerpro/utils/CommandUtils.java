@@ -27,13 +27,21 @@ package net.jadedmc.commandblockerpro.utils;
 import net.jadedmc.commandblockerpro.CommandBlockerProPlugin;
 import net.jadedmc.commandblockerpro.commands.DummyCommand;
 import net.jadedmc.commandblockerpro.rules.Rule;
+import net.jadedmc.commandblockerpro.rules.RuleSet;
+import net.jadedmc.commandblockerpro.rules.RuleType;
 import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
 import org.bukkit.command.CommandMap;
+import org.bukkit.command.SimpleCommandMap;
 import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * A collection of methods useful for Dynamically registering commands.
@@ -43,6 +51,11 @@ public class CommandUtils {
     private static CommandBlockerProPlugin plugin = null;
     private static Field bukkitCommandMap = null;
     private static CommandMap commandMap = null;
+    private static Field knownCommandsField = null;
+    private static Method syncCommandsMethod = null;
+    private static final Map<String, DummyCommand> dummyCommands = new HashMap<>();
+    private static boolean syncScheduled = false;
+    private static final MessageTemplate EMPTY_MESSAGE = new MessageTemplate("");
 
     /**
      * Registers the utility.
@@ -60,47 +73,149 @@ public class CommandUtils {
         catch (IllegalAccessException | NoSuchFieldException exception) {
             exception.printStackTrace();
         }
+
+        // Allow removing commands from the command map, which has no method for it in the Bukkit API.
+        try {
+            knownCommandsField = SimpleCommandMap.class.getDeclaredField("knownCommands");
+            knownCommandsField.setAccessible(true);
+        }
+        catch (NoSuchFieldException exception) {
+            exception.printStackTrace();
+        }
+
+        // Look up the method to resend commands once, since it is needed on every reload.
+        try {
+            syncCommandsMethod = Bukkit.getServer().getClass().getDeclaredMethod("syncCommands");
+            syncCommandsMethod.setAccessible(true);
+        }
+        catch (NoSuchMethodException exception) {
+            exception.printStackTrace();
+        }
     }
 
     /**
-     * Registers dummy commands for a given Rule.
+     * Updates the registered dummy commands to match a set of rules.
      * Dummy commands are commands that are registered dynamically, and only display the rule's blocked message.
+     * Only commands that were added or removed since the last update are registered or unregistered,
+     * and players are only sent the new command list if one of those changed.
      * Used for the "MESSAGE" Rule Type.
-     * @param rule Rule to register dummy commands for.
+     * @param ruleSet Rules to register dummy commands for.
      */
-    public static void registerDummyCommands(@NotNull final Rule rule) {
-        // Define the block message to be used.
-        final String blockMessage;
-        if(rule.hasBlockMessage()) {
-            blockMessage = rule.getBlockMessage();
-        }
-        else {
-            if(plugin.getConfigManager().getConfig().isSet("blockMessage")) {
-                blockMessage = plugin.getConfigManager().getConfig().getString("blockMessage");
+    public static void updateDummyCommands(@NotNull final RuleSet ruleSet) {
+        // Work out the block message of every dummy command the rules need.
+        // If several rules list the same command, the first one is used, as it is the one registered under the command's name.
+        final Map<String, MessageTemplate> wantedCommands = new LinkedHashMap<>();
+        for(final Rule rule : ruleSet.getRules()) {
+            if(rule.getType() != RuleType.MESSAGE) {
+                continue;
             }
-            else {
-                blockMessage = "";
+
+            // Define the block message to be used.
+            final MessageTemplate blockMessage = ruleSet.getBlockMessage(rule) != null ? ruleSet.getBlockMessage(rule) : EMPTY_MESSAGE;
+
+            // Commands listed with arguments can't have their own dummy command, so they are skipped.
+            for(final String command : rule.getCommands()) {
+                if(command.indexOf(' ') >= 0) {
+                    continue;
+                }
+
+                wantedCommands.putIfAbsent(command.replaceFirst("/", ""), blockMessage);
             }
         }
 
-        // Register the dummy commands set in the rule.
-        for(final String command : rule.getCommands()) {
-            final String finalCommand = command.replaceFirst("/", "");
-            commandMap.register(finalCommand, new DummyCommand(finalCommand, blockMessage));
+        boolean changed = false;
+
+        // Unregister dummy commands that are no longer needed.
+        final Iterator<Map.Entry<String, DummyCommand>> registeredCommands = dummyCommands.entrySet().iterator();
+        while(registeredCommands.hasNext()) {
+            final Map.Entry<String, DummyCommand> entry = registeredCommands.next();
+            if(!wantedCommands.containsKey(entry.getKey())) {
+                unregister(entry.getValue());
+                registeredCommands.remove();
+                changed = true;
+            }
         }
 
-        syncCommands();
+        // Register new dummy commands, and update the message of existing ones, which players can't see.
+        for(final Map.Entry<String, MessageTemplate> entry : wantedCommands.entrySet()) {
+            final DummyCommand existingCommand = dummyCommands.get(entry.getKey());
+            if(existingCommand != null) {
+                existingCommand.setBlockMessage(entry.getValue());
+                continue;
+            }
+
+            final DummyCommand dummyCommand = new DummyCommand(entry.getKey(), entry.getValue());
+            commandMap.register(entry.getKey(), dummyCommand);
+            dummyCommands.put(entry.getKey(), dummyCommand);
+            changed = true;
+        }
+
+        if(changed) {
+            requestSync();
+        }
+    }
+
+    /**
+     * Unregisters every dummy command.
+     * Called when the plugin is disabled, so the commands don't linger if the plugin is reloaded.
+     */
+    public static void unregisterDummyCommands() {
+        for(final DummyCommand dummyCommand : dummyCommands.values()) {
+            unregister(dummyCommand);
+        }
+
+        dummyCommands.clear();
+    }
+
+    /**
+     * Removes a command from the command map, under its name and every alias it was registered as.
+     * @param command Command to remove.
+     */
+    @SuppressWarnings("unchecked")
+    private static void unregister(@NotNull final Command command) {
+        command.unregister(commandMap);
+
+        if(knownCommandsField == null || !(commandMap instanceof SimpleCommandMap)) {
+            return;
+        }
+
+        try {
+            final Map<String, Command> knownCommands = (Map<String, Command>) knownCommandsField.get(commandMap);
+            knownCommands.values().removeIf(knownCommand -> knownCommand == command);
+        }
+        catch (IllegalAccessException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Schedules the command list to be sent to all online players on the next tick.
+     * Any other requests before then are combined, so players are sent the command list at most once per tick.
+     */
+    public static void requestSync() {
+        if(syncScheduled) {
+            return;
+        }
+
+        syncScheduled = true;
+        SchedulerUtils.runSync(() -> {
+            syncScheduled = false;
+            syncCommands();
+        });
     }
 
     /**
      * Update the command map for all online players, allowing players to see commands added in the "SHOW" Rule Type.
      */
     public static void syncCommands() {
+        if(syncCommandsMethod == null) {
+            return;
+        }
+
         try {
-            final Method syncCommandsMethod = Bukkit.getServer().getClass().getDeclaredMethod("syncCommands");
             syncCommandsMethod.invoke(plugin.getServer());
         }
-        catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException exception) {
+        catch (IllegalAccessException | InvocationTargetException exception) {
             exception.printStackTrace();
         }
     }
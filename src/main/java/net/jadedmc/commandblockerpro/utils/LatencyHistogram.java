@@ -0,0 +1,131 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe histogram of durations, used to find percentiles such as the median.
+ * Durations are sorted into buckets that double in size, each split into 8 smaller buckets,
+ * so recording a duration is a single counter increment and percentiles are accurate to within 12.5%.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKET_COUNT);
+
+    /**
+     * Records a duration.
+     * @param nanos Duration in nanoseconds.
+     */
+    public void record(final long nanos) {
+        counts.incrementAndGet(indexOf(Math.max(0, nanos)));
+    }
+
+    /**
+     * Get the number of durations recorded.
+     * @return Number of recorded durations.
+     */
+    public long getCount() {
+        long count = 0;
+        for(int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+
+        return count;
+    }
+
+    /**
+     * Get a percentile of the recorded durations.
+     * @param percentile Percentile to get, between 0 and 1 (ex: 0.99 for the 99th percentile).
+     * @return Upper bound of the percentile in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getPercentile(final double percentile) {
+        // Copy the counts first, so durations recorded while reading don't skew the result.
+        final long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for(int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+
+        if(total == 0) {
+            return 0;
+        }
+
+        final long target = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for(int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if(seen >= target) {
+                return upperBound(i);
+            }
+        }
+
+        return upperBound(snapshot.length - 1);
+    }
+
+    /**
+     * Removes every recorded duration.
+     */
+    public void reset() {
+        for(int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    /**
+     * Gets the bucket a duration belongs in.
+     * @param value Duration in nanoseconds.
+     * @return Index of the bucket.
+     */
+    private static int indexOf(final long value) {
+        // Small values get a bucket each.
+        if(value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        // Otherwise, the highest bit picks the bucket, and the next few bits pick the smaller bucket within it.
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1));
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    /**
+     * Gets the largest duration that belongs in a bucket.
+     * @param index Index of the bucket.
+     * @return Largest duration of the bucket in nanoseconds.
+     */
+    private static long upperBound(final int index) {
+        final int bucket = index >> SUB_BUCKET_BITS;
+        final int subBucket = index & (SUB_BUCKET_COUNT - 1);
+        if(bucket == 0) {
+            return subBucket;
+        }
+
+        final int shift = bucket - 1;
+        return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.utils;
+
+import net.jadedmc.commandblockerpro.PlaceholderManager;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextReplacementConfig;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A message with a {command} placeholder, such as a block message, that is parsed once when it is loaded.
+ * Sending the message then only fills in the placeholder, instead of translating color codes and parsing MiniMessage every time.
+ */
+public class MessageTemplate {
+    // Stands in for the command while the message is parsed. Uses a private use character, which commands don't contain.
+    private static final String COMMAND_SENTINEL = "\uE000";
+
+    private final String message;
+    private final Component component;
+    private final boolean hasCommand;
+    private final boolean hasCommandAsText;
+    private final boolean hasPlaceholders;
+
+    /**
+     * Creates the template, parsing the message if possible.
+     * @param message Message to send, supporting legacy color codes, MiniMessage, and the {command} placeholder.
+     */
+    public MessageTemplate(@NotNull final String message) {
+        this.message = message;
+        this.hasCommand = message.contains("{command}");
+
+        // PlaceholderAPI placeholders have to be set for each player before parsing, so messages without any skip PlaceholderAPI.
+        this.hasPlaceholders = !PlaceholderManager.findPlaceholders(message).isEmpty();
+
+        // {command} inside a tag, such as a click event, or inside a gradient or rainbow, which color each character, has to be replaced as text before parsing.
+        this.hasCommandAsText = hasCommand && (isInsideTag(message, "{command}") || hasPerCharacterColors(message));
+        if(hasCommandAsText) {
+            this.component = null;
+            return;
+        }
+
+        this.component = MiniMessage.miniMessage().deserialize(ChatUtils.replaceLegacy(message.replace("{command}", "<command>")), Placeholder.unparsed("command", COMMAND_SENTINEL));
+    }
+
+    /**
+     * Get the message the template was created from.
+     * @return Unparsed message.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Sends the message, filling in the {command} placeholder.
+     * @param sender CommandSender to send the message to.
+     * @param command Command to fill in, without the leading '/'.
+     */
+    public void send(@NotNull final CommandSender sender, @NotNull final String command) {
+        // Placeholders are set before filling in {command}, so placeholders typed into a command are never set.
+        if(hasPlaceholders && sender instanceof Player && ChatUtils.usesPlaceholders()) {
+            ChatUtils.chat(sender, parse(ChatUtils.setPlaceholders((Player) sender, message), command));
+            return;
+        }
+
+        // Messages that can't be parsed ahead of time are parsed now.
+        if(component == null) {
+            ChatUtils.chat(sender, parse(message, command));
+            return;
+        }
+
+        if(!hasCommand) {
+            ChatUtils.chat(sender, component);
+            return;
+        }
+
+        ChatUtils.chat(sender, component.replaceText(TextReplacementConfig.builder().matchLiteral(COMMAND_SENTINEL).replacement(command).build()));
+    }
+
+    /**
+     * Parses a message, filling in the {command} placeholder so that tags typed into the command are shown as text instead of parsed.
+     * Legacy color codes are translated before the command is filled in, so they are never translated in the command either.
+     * @param text Message to parse, with PlaceholderAPI placeholders already set.
+     * @param command Command to fill in, without the leading '/'.
+     * @return Parsed message.
+     */
+    private Component parse(@NotNull final String text, @NotNull final String command) {
+        final String translated = ChatUtils.replaceLegacy(text);
+
+        // Inside a tag or gradient, the command has to be part of the text being parsed, so its tags are escaped instead.
+        if(hasCommandAsText) {
+            return MiniMessage.miniMessage().deserialize(translated.replace("{command}", MiniMessage.miniMessage().escapeTags(command)));
+        }
+
+        return MiniMessage.miniMessage().deserialize(translated.replace("{command}", "<command>"), Placeholder.unparsed("command", command));
+    }
+
+    /**
+     * Checks if a message uses MiniMessage tags that color each character differently.
+     * @param message Message to check.
+     * @return Whether the message contains a gradient or rainbow tag.
+     */
+    private static boolean hasPerCharacterColors(@NotNull final String message) {
+        final String lowerCaseMessage = message.toLowerCase();
+        return lowerCaseMessage.contains("<gradient") || lowerCaseMessage.contains("<rainbow");
+    }
+
+    /**
+     * Checks if a piece of text appears inside a MiniMessage tag, such as the value of a click event.
+     * @param message Message to check.
+     * @param text Text to look for.
+     * @return Whether the text is found between a '<' and a '>'.
+     */
+    private static boolean isInsideTag(@NotNull final String message, @NotNull final String text) {
+        boolean insideTag = false;
+        for(int i = 0; i < message.length(); i++) {
+            final char character = message.charAt(i);
+            if(character == '<') {
+                insideTag = true;
+            }
+            else if(character == '>') {
+                insideTag = false;
+            }
+            else if(insideTag && message.startsWith(text, i)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
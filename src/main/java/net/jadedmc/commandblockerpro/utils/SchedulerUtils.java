@@ -0,0 +1,125 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.utils;
+
+import net.jadedmc.commandblockerpro.CommandBlockerProPlugin;
+import org.bukkit.Server;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A collection of methods for running tasks off and back on the server thread.
+ * Works on both Bukkit servers and Folia, which does not support the Bukkit scheduler.
+ */
+public class SchedulerUtils {
+    private static CommandBlockerProPlugin plugin;
+    private static ExecutorService executor;
+    private static Object globalRegionScheduler = null;
+    private static Method globalExecuteMethod = null;
+
+    /**
+     * Starts the background thread and checks if the server is running Folia.
+     * Called when the plugin is enabled.
+     * @param pl Instance of the plugin.
+     */
+    public static void initialize(@NotNull final CommandBlockerProPlugin pl) {
+        plugin = pl;
+
+        // Heavy work, such as loading rules, runs on a single thread so tasks finish in the order they were started.
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "CommandBlockerPro Worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Folia replaces the Bukkit scheduler with region schedulers, which are found with reflection since they aren't in the Spigot API.
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            globalRegionScheduler = Server.class.getMethod("getGlobalRegionScheduler").invoke(pl.getServer());
+            globalExecuteMethod = Class.forName("io.papermc.paper.threadedregions.scheduler.GlobalRegionScheduler").getMethod("execute", Plugin.class, Runnable.class);
+        }
+        catch (ClassNotFoundException exception) {
+            // Not running Folia.
+        }
+        catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops the background thread, giving running tasks a moment to finish.
+     * Called when the plugin is disabled.
+     */
+    public static void disable() {
+        if(executor == null) {
+            return;
+        }
+
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    /**
+     * Runs a task on the plugin's background thread.
+     * Tasks must not use the Bukkit API, except where it is documented to be thread-safe.
+     * @param task Task to run.
+     */
+    public static void runAsync(@NotNull final Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Runs a task on the server thread during the next tick.
+     * On Folia, this is the global region thread.
+     * @param task Task to run.
+     */
+    public static void runSync(@NotNull final Runnable task) {
+        if(globalExecuteMethod == null) {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+            return;
+        }
+
+        try {
+            globalExecuteMethod.invoke(globalRegionScheduler, plugin, task);
+        }
+        catch (IllegalAccessException | InvocationTargetException exception) {
+            // Run the task right away rather than never running it.
+            exception.printStackTrace();
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import net.jadedmc.commandblockerpro.GlobalSettings;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks which rules the command trie finds for a command, including wildcards, namespaces and arguments,
+ * and that commands sharing a match key are always listed by the same rules.
+ */
+public class CommandTrieTest {
+    private static final int COMMANDS_PER_SEED = 50_000;
+    private static final String[] LABELS = {"/lp", "/LP", "/luckperms:lp", "/gamemode", "/pl", "/bukkit:pl", "/msg", "/bukkit:ver", "/ver"};
+    private static final String[] ARGUMENTS = {"user", "group", "bob", "BOB", "admin", "permission", "set", "creative", "survival", "info", "*"};
+
+    private final List<Rule> rules = createRules(
+            Arrays.asList("/pl", "/bukkit:ver"),
+            Arrays.asList("/LP  User * Permission Set"),
+            Arrays.asList("/gamemode creative", "/gamemode * bob"),
+            Arrays.asList("/lp user admin"),
+            Arrays.asList("/msg"));
+    private final CommandTrie trie = new CommandTrie(rules);
+
+    /**
+     * Checks the rules listing commands with and without arguments, wildcards, and namespaces.
+     */
+    @Test
+    public void matchFindsListingRules() {
+        final Object[][] cases = {
+                {"/pl", new int[]{0}},
+                {"/PL extra words", new int[]{0}},
+                {"/bukkit:pl", new int[]{0}},
+                {"/bukkit:ver", new int[]{0}},
+                {"/ver", new int[]{}},
+                {"/lp", new int[]{}},
+                {"/lp user bob permission set", new int[]{1}},
+                {"/LP  USER Bob\tPERMISSION set node true", new int[]{1}},
+                {"/luckperms:lp user bob permission set", new int[]{1}},
+                {"/lp user bob permission unset", new int[]{}},
+                {"/lp user bob permission", new int[]{}},
+                {"/lp user admin permission set", new int[]{1, 3}},
+                {"/lp user admin", new int[]{3}},
+                {"/gamemode", new int[]{}},
+                {"/gamemode creative", new int[]{2}},
+                {"/gamemode creative bob", new int[]{2}},
+                {"/gamemode survival bob", new int[]{2}},
+                {"/gamemode survival alice", new int[]{}},
+                {"/msg bob hi", new int[]{4}},
+                {"/message bob hi", new int[]{}},
+        };
+
+        for(final Object[] testCase : cases) {
+            final String message = (String) testCase[0];
+            assertEquals(toBitSet((int[]) testCase[1]), trie.match(NormalizedCommand.parse(message)), () -> "Command: " + message);
+        }
+    }
+
+    /**
+     * Checks how many words of a command the trie looks at.
+     */
+    @Test
+    public void getDepthCountsCheckedWords() {
+        assertEquals(5, trie.getMaxDepth());
+        assertEquals(1, trie.getDepth(NormalizedCommand.parse("/pl a b c")));
+        assertEquals(1, trie.getDepth(NormalizedCommand.parse("/lp")));
+        assertEquals(2, trie.getDepth(NormalizedCommand.parse("/lp info x y")));
+        assertEquals(3, trie.getDepth(NormalizedCommand.parse("/lp user bob")));
+        assertEquals(5, trie.getDepth(NormalizedCommand.parse("/lp user bob permission set node true")));
+        assertEquals(3, trie.getDepth(NormalizedCommand.parse("/gamemode survival bob now")));
+        assertEquals(1, new CommandTrie(createRules(Arrays.asList("/pl"))).getDepth(NormalizedCommand.parse("/pl a b")));
+    }
+
+    /**
+     * Checks which listed commands a recording made with the trie keeps every word of.
+     */
+    @Test
+    public void keepsWordsOfDeeperCommands() {
+        final CommandTrie recorded = new CommandTrie(Arrays.asList("/lp user * permission set", "/pl"));
+        assertTrue(recorded.keepsWords("/lp user * permission set"));
+        assertTrue(recorded.keepsWords("/lp user bob"));
+        assertTrue(recorded.keepsWords("/lp group"));
+        assertTrue(recorded.keepsWords("/ver"));
+        assertFalse(recorded.keepsWords("/lp group x"));
+        assertFalse(recorded.keepsWords("/pl foo"));
+    }
+
+    /**
+     * Compares the trie with checking each listed command on its own over random commands, and checks that
+     * the match key of each command is listed by the same rules as the whole command.
+     * Each seed gives a different, but repeatable, set of commands.
+     * @param seed Seed of the random commands.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4})
+    public void matchAgreesWithListedCommands(final long seed) {
+        final Random random = new Random(seed);
+        for(int count = 0; count < COMMANDS_PER_SEED; count++) {
+            final StringBuilder builder = new StringBuilder(LABELS[random.nextInt(LABELS.length)]);
+            for(int argument = 0, arguments = random.nextInt(7); argument < arguments; argument++) {
+                builder.append(random.nextInt(5) == 0 ? "  " : " ").append(ARGUMENTS[random.nextInt(ARGUMENTS.length)]);
+            }
+
+            final String message = builder.toString();
+            final NormalizedCommand command = NormalizedCommand.parse(message);
+            final BitSet listedRules = trie.match(command);
+
+            final BitSet expected = new BitSet();
+            for(final Rule rule : rules) {
+                for(final String listedCommand : rule.getCommands()) {
+                    if(CommandTrie.matches(listedCommand, command)) {
+                        expected.set(rule.getId());
+                    }
+                }
+            }
+            assertEquals(expected, listedRules, () -> "Command: " + message);
+
+            final String matchKey = command.getKey(trie.getDepth(command));
+            assertEquals(listedRules, trie.match(NormalizedCommand.parse(matchKey)), () -> "Command: " + message + ", match key: " + matchKey);
+        }
+    }
+
+    /**
+     * Creates a set of rule ids.
+     * @param ruleIds Ids to include.
+     * @return Set of the ids.
+     */
+    private static BitSet toBitSet(final int... ruleIds) {
+        final BitSet bitSet = new BitSet();
+        for(final int ruleId : ruleIds) {
+            bitSet.set(ruleId);
+        }
+
+        return bitSet;
+    }
+
+    /**
+     * Creates a blacklist rule for each list of commands, in order.
+     * @param commandLists Listed commands of each rule.
+     * @return Created rules.
+     */
+    @SafeVarargs
+    private static List<Rule> createRules(@NotNull final List<String>... commandLists) {
+        final GlobalSettings settings = new GlobalSettings(new MemoryConfiguration());
+        final List<Rule> rules = new ArrayList<>();
+        for(final List<String> commands : commandLists) {
+            final ConfigurationSection config = new MemoryConfiguration().createSection("rule" + rules.size());
+            config.set("type", "BLACKLIST");
+            config.set("commands", commands);
+            rules.add(new Rule(config, rules.size(), settings));
+        }
+
+        return rules;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import net.jadedmc.commandblockerpro.GlobalSettings;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the contains automaton counts the same contained strings as checking each one with String.contains.
+ */
+public class ContainsAutomatonTest {
+    private static final int AUTOMATONS_PER_SEED = 3000;
+    private static final int COMMANDS_PER_AUTOMATON = 20;
+    private static final String ALPHABET = "ab:/c";
+
+    /**
+     * Checks the counts of contained strings that overlap, share prefixes and suffixes, or are shared between rules.
+     */
+    @Test
+    public void countsDistinctStringsPerRule() {
+        final GlobalSettings settings = new GlobalSettings(new MemoryConfiguration());
+        final List<Rule> rules = new ArrayList<>();
+        rules.add(createRule(0, Arrays.asList("op", "deop"), settings));
+        rules.add(createRule(1, Arrays.asList("he", "she", "his", "hers"), settings));
+        rules.add(createRule(2, Arrays.asList("aa", "aaa"), settings));
+        rules.add(createRule(3, Arrays.asList("op"), settings));
+        rules.add(createRule(4, Arrays.asList(), settings));
+        rules.add(createRule(5, Arrays.asList("GameMode"), settings));
+        final ContainsAutomaton automaton = new ContainsAutomaton(rules);
+
+        // Strings are only counted once, no matter how many times they are found.
+        assertArrayEquals(new int[]{2, 0, 0, 1, 0, 0}, automaton.match("/deop op op"));
+        assertArrayEquals(new int[]{0, 3, 0, 0, 0, 0}, automaton.match("/ushers"));
+        assertArrayEquals(new int[]{0, 3, 0, 0, 0, 0}, automaton.match("/this she"));
+        assertArrayEquals(new int[]{0, 0, 1, 0, 0, 0}, automaton.match("/aa"));
+        assertArrayEquals(new int[]{0, 0, 2, 0, 0, 0}, automaton.match("/aaaa"));
+
+        // Filters are normalized to lower case, the same way commands are.
+        assertArrayEquals(new int[]{0, 0, 0, 0, 0, 1}, automaton.match("/gamemode creative"));
+        assertArrayEquals(new int[]{0, 0, 0, 0, 0, 0}, automaton.match("/GameMode creative"));
+        assertArrayEquals(new int[6], automaton.match(""));
+    }
+
+    /**
+     * Checks that an empty contained string is found in every command, as it is with String.contains.
+     */
+    @Test
+    public void emptyStringIsAlwaysFound() {
+        final List<Rule> rules = new ArrayList<>();
+        rules.add(createRule(0, Arrays.asList("", "x"), new GlobalSettings(new MemoryConfiguration())));
+        final ContainsAutomaton automaton = new ContainsAutomaton(rules);
+
+        assertArrayEquals(new int[]{1}, automaton.match(""));
+        assertArrayEquals(new int[]{2}, automaton.match("/x"));
+    }
+
+    /**
+     * Compares the automaton with String.contains over random filters and commands, using a small alphabet
+     * so filters overlap often. Each seed gives a different, but repeatable, set of filters and commands.
+     * @param seed Seed of the random filters and commands.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4})
+    public void matchesStringContains(final long seed) {
+        final Random random = new Random(seed);
+        final GlobalSettings settings = new GlobalSettings(new MemoryConfiguration());
+
+        for(int count = 0; count < AUTOMATONS_PER_SEED; count++) {
+            final List<Rule> rules = new ArrayList<>();
+            for(int ruleId = 0, ruleCount = 1 + random.nextInt(5); ruleId < ruleCount; ruleId++) {
+                final List<String> contains = new ArrayList<>();
+                for(int string = 0, strings = random.nextInt(4); string < strings; string++) {
+                    contains.add(randomText(random, random.nextInt(4)));
+                }
+                rules.add(createRule(ruleId, contains, settings));
+            }
+
+            final ContainsAutomaton automaton = new ContainsAutomaton(rules);
+            for(int command = 0; command < COMMANDS_PER_AUTOMATON; command++) {
+                final String message = randomText(random, random.nextInt(10));
+                final int[] hits = automaton.match(message);
+                for(final Rule rule : rules) {
+                    int expected = 0;
+                    for(final String containedString : rule.getContains()) {
+                        if(message.contains(containedString)) {
+                            expected++;
+                        }
+                    }
+
+                    assertEquals(expected, hits[rule.getId()], () -> "Filters: " + rule.getContains() + ", command: " + message);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates random text from a small alphabet.
+     * @param random Random to create the text with.
+     * @param length Length of the text.
+     * @return Random text.
+     */
+    private static String randomText(@NotNull final Random random, final int length) {
+        final StringBuilder builder = new StringBuilder();
+        for(int index = 0; index < length; index++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Creates a blacklist rule with a list of contained strings.
+     * @param id Id of the rule.
+     * @param contains Contained strings of the rule.
+     * @param settings Global settings of the rule.
+     * @return Created rule.
+     */
+    private static Rule createRule(final int id, @NotNull final List<String> contains, @NotNull final GlobalSettings settings) {
+        final ConfigurationSection config = new MemoryConfiguration().createSection("rule" + id);
+        config.set("type", "BLACKLIST");
+        config.set("contains", contains);
+        return new Rule(config, id, settings);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks how messages are normalized into commands.
+ */
+public class NormalizedCommandTest {
+
+    /**
+     * Checks the key of messages with different cases, slashes and whitespace.
+     */
+    @Test
+    public void parseNormalizesCommand() {
+        final String[][] cases = {
+                {"/pl", "/pl"},
+                {"/PL", "/pl"},
+                {"pl", "/pl"},
+                {"  /  Pl  args", "/pl"},
+                {"/pl\targs", "/pl"},
+                {"/", "/"},
+                {"", "/"},
+                {"//pl", "//pl"},
+                {"/ÉPL", "/Épl"},
+                {"/Bukkit:PL", "/bukkit:pl"},
+        };
+
+        for(final String[] testCase : cases) {
+            assertEquals(testCase[1], NormalizedCommand.parse(testCase[0]).getKey(), () -> "Message: " + testCase[0]);
+        }
+    }
+
+    /**
+     * Checks the namespace and label of commands with and without a namespace.
+     */
+    @Test
+    public void parseFindsNamespace() {
+        final NormalizedCommand namespaced = NormalizedCommand.parse("/Bukkit:Plugins:x y");
+        assertTrue(namespaced.hasNamespace());
+        assertEquals("bukkit", namespaced.getNamespace());
+        assertEquals("/plugins:x", namespaced.getLabelKey());
+        assertEquals("bukkit:plugins:x", namespaced.getName());
+
+        final NormalizedCommand plain = NormalizedCommand.parse("/plugins");
+        assertFalse(plain.hasNamespace());
+        assertNull(plain.getNamespace());
+        assertEquals("/plugins", plain.getLabelKey());
+        assertEquals("plugins", plain.getName());
+
+        final NormalizedCommand empty = NormalizedCommand.parse("/:pl");
+        assertTrue(empty.hasNamespace());
+        assertEquals("", empty.getNamespace());
+        assertEquals("/pl", empty.getLabelKey());
+    }
+
+    /**
+     * Checks that arguments are split on any whitespace, converted to lower case, and limited.
+     */
+    @Test
+    public void getArgumentsSplitsWhitespace() {
+        final NormalizedCommand command = NormalizedCommand.parse("/LP  User\tBob \n Permission   SET ");
+        assertEquals(Arrays.asList("user", "bob", "permission", "set"), command.getArguments(Integer.MAX_VALUE));
+        assertEquals(Arrays.asList("user", "bob"), command.getArguments(2));
+        assertEquals(Collections.emptyList(), command.getArguments(0));
+        assertEquals(Collections.emptyList(), NormalizedCommand.parse("/pl   ").getArguments(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Checks that keys only include as many words as asked for, separated by single spaces.
+     */
+    @Test
+    public void getKeyLimitsDepth() {
+        final NormalizedCommand command = NormalizedCommand.parse("/LP  User\tBob  Info");
+        assertSame(command.getKey(), command.getKey(0));
+        assertSame(command.getKey(), command.getKey(1));
+        assertEquals("/lp user", command.getKey(2));
+        assertEquals("/lp user bob", command.getKey(3));
+        assertEquals("/lp user bob info", command.getKey(4));
+        assertEquals("/lp user bob info", command.getKey(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Checks that only ASCII letters are converted to lower case, and that text without them is not copied.
+     */
+    @Test
+    public void toLowerCaseOnlyConvertsAscii() {
+        assertEquals("/gamemode créative", NormalizedCommand.toLowerCase("/GameMode CRéative"));
+        assertEquals("Éé", NormalizedCommand.toLowerCase("Éé"));
+
+        final String lowerCase = "already lower case";
+        assertSame(lowerCase, NormalizedCommand.toLowerCase(lowerCase));
+    }
+}
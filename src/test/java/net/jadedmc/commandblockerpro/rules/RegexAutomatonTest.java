@@ -0,0 +1,253 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.rules;
+
+import net.jadedmc.commandblockerpro.GlobalSettings;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the LINEAR regex engine finds the same matches as Java's regex engine, over randomly generated filters
+ * and commands, and that filters it can't support are left to Java's regex engine.
+ */
+public class RegexAutomatonTest {
+    private static final int AUTOMATONS_PER_SEED = 4000;
+    private static final int RULES_PER_AUTOMATON = 5;
+    private static final int COMMANDS_PER_AUTOMATON = 30;
+    private static final String[] ATOMS = {"a", "b", "c", "A", "é", ".", "/", ":", "\\.", "\\d", "\\D", "\\w", "\\W", "\\s", "\\S",
+            "\\n", "\\r", "\\t", "\\x61", "\\u0062", "\\0141", "[ab]", "[^a]", "[a-c]", "[B-Z]", "[^A]", "[^b-C]", "[]a]", "[-a]", "[a-]",
+            "[\\d:]", "[à-ÿ]", "(?:a|b)", "(?<name>a)"};
+    private static final String[] ANCHORS = {"^", "$", "\\A", "\\Z", "\\z", "\\Qa.\\E"};
+    private static final String[] QUANTIFIERS = {"*", "+", "?", "{2}", "{1,3}", "{0,}", "{2,}", "*?", "+?", "??", "{1,2}?"};
+    private static final String COMMAND_CHARACTERS = "abcABC/:.1 éÉ\n\r\t";
+    private static final String[] UNSUPPORTED = {"(a)\\1", "(?<name>a)\\k<name>", "a(?=b)", "a(?!b)", "(?<=a)b", "(?<!a)b",
+            "a*+", "a++", "a?+", "a{1,2}+", "(?>a+)b", "(?i)a", "\\bab", "\\Ga", "[a-z&&[^b]]", "^*a", "\\Qab\\E+"};
+
+    /**
+     * Compares both engines over random filters and commands.
+     * Filters are compiled into automatons of several rules at once, so filters are also checked not to affect each other.
+     * Each seed gives a different, but repeatable, set of filters and commands.
+     * @param seed Seed of the random filters and commands.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4})
+    public void linearMatchesJava(final long seed) {
+        final Random random = new Random(seed);
+        final GlobalSettings settings = new GlobalSettings(new MemoryConfiguration());
+        int filters = 0;
+        int unsupported = 0;
+
+        for(int count = 0; count < AUTOMATONS_PER_SEED; count++) {
+            final List<Rule> rules = new ArrayList<>();
+            final List<Pattern> patterns = new ArrayList<>();
+            while(rules.size() < RULES_PER_AUTOMATON) {
+                final String filter = randomFilter(random, 0);
+                try {
+                    patterns.add(Pattern.compile(filter, Pattern.CASE_INSENSITIVE));
+                }
+                catch (PatternSyntaxException exception) {
+                    continue;
+                }
+
+                rules.add(createRule(rules.size(), filter, settings));
+            }
+
+            final RegexAutomaton automaton = new RegexAutomaton(rules, RegexEngine.LINEAR);
+            filters += rules.size();
+            unsupported += automaton.getWarnings().size();
+
+            for(int command = 0; command < COMMANDS_PER_AUTOMATON; command++) {
+                final String message = randomCommand(random);
+                final boolean[] hits = automaton.match(message);
+                for(int ruleId = 0; ruleId < rules.size(); ruleId++) {
+                    final Pattern pattern = patterns.get(ruleId);
+                    assertEquals(pattern.matcher(message).find(), hits[ruleId], () -> "Filter: " + pattern.pattern() + ", command: " + escape(message));
+                }
+            }
+        }
+
+        // Make sure the automaton was actually tested, instead of falling back for most filters.
+        assertTrue(unsupported * 10 < filters, "Too many filters fell back: " + unsupported + " of " + filters);
+    }
+
+    /**
+     * Compares both engines on filters that hit each edge case of Java's regex engine.
+     */
+    @Test
+    public void linearMatchesJavaOnEdgeCases() {
+        final String[] filters = {"", "^$", "$", "a$", "a\\Z", "a\\z", "^/pl(ugins)?$", "^/(bukkit:)?ver(sion)?( |$)", "(a|ab)(c|bcd)",
+                "(^a|b)*", "x*", "[^\\s]{3}", "a{0}", "a{2,2}", "(a*)*", "(a?){3}b", "\\x{1F600}", "[\\x{1F600}]", "\\cA", "\\e\\a\\f",
+                "[^a-z]", "\\Q\\E", "\\Q", "\\.\\*", "é", "É", "\\p{L}"};
+        final String[] commands = {"", "a", "/pl", "/plugins", "/bukkit:ver", "/version x", "abcd", "ab\n", "a\r\n", "b", "\u0001",
+                "\u001b\u0007\f", "\uD83D\uDE00", "É", "é", "/a.*"};
+
+        for(final String filter : filters) {
+            final Pattern pattern = Pattern.compile(filter, Pattern.CASE_INSENSITIVE);
+            final RegexAutomaton automaton = new RegexAutomaton(pattern, RegexEngine.LINEAR);
+            for(final String command : commands) {
+                assertEquals(pattern.matcher(command).find(), automaton.match(command)[0], () -> "Filter: " + filter + ", command: " + escape(command));
+            }
+        }
+    }
+
+    /**
+     * Checks that backreferences, lookarounds, possessive quantifiers and similar features are refused by the compiler,
+     * and that rules using them still match the same way through Java's regex engine.
+     */
+    @Test
+    public void unsupportedFeaturesFallBack() {
+        final String[] commands = {"", "a", "aa", "ab", "ba", "aab", "/a b"};
+
+        for(final String filter : UNSUPPORTED) {
+            assertThrows(UnsupportedRegexException.class, () -> new RegexCompiler().compile(filter, 0, true), () -> "Filter: " + filter);
+
+            final Pattern pattern = Pattern.compile(filter, Pattern.CASE_INSENSITIVE);
+            final RegexAutomaton automaton = new RegexAutomaton(pattern, RegexEngine.LINEAR);
+            assertEquals(1, automaton.getWarnings().size(), () -> "Filter: " + filter);
+            for(final String command : commands) {
+                assertEquals(pattern.matcher(command).find(), automaton.match(command)[0], () -> "Filter: " + filter + ", command: " + command);
+            }
+        }
+    }
+
+    /**
+     * Checks that a rule's unsupported filter doesn't stop its other filters, or other rules, from using the automaton.
+     */
+    @Test
+    public void fallbackOnlyAffectsUnsupportedFilter() {
+        final GlobalSettings settings = new GlobalSettings(new MemoryConfiguration());
+        final List<Rule> rules = new ArrayList<>();
+        rules.add(createRule(0, "^/op", settings));
+        rules.add(createRule(1, "(a)\\1", settings));
+        rules.add(createRule(2, "^/deop$", settings));
+
+        final RegexAutomaton automaton = new RegexAutomaton(rules, RegexEngine.LINEAR);
+        assertEquals(1, automaton.getWarnings().size());
+        assertArrayEquals(new boolean[]{true, false, false}, automaton.match("/op bob"));
+        assertArrayEquals(new boolean[]{false, true, false}, automaton.match("/maab"));
+        assertArrayEquals(new boolean[]{false, false, true}, automaton.match("/deop"));
+    }
+
+    /**
+     * Checks that the JAVA engine doesn't compile anything, and so never warns.
+     */
+    @Test
+    public void javaEngineDoesNotCompile() {
+        final RegexAutomaton automaton = new RegexAutomaton(Pattern.compile("(a)\\1", Pattern.CASE_INSENSITIVE), RegexEngine.JAVA);
+        assertTrue(automaton.getWarnings().isEmpty());
+        assertTrue(automaton.match("/AA")[0]);
+    }
+
+    /**
+     * Creates a random filter of up to 4 pieces, where each piece may be a group or anchor, and may be repeated.
+     * Groups are only nested twice, since deeper repeated groups can make Java's regex engine backtrack for minutes.
+     * @param random Random to create the filter with.
+     * @param depth How many groups the filter is nested in.
+     * @return Random filter, which may not be valid.
+     */
+    private static String randomFilter(@NotNull final Random random, final int depth) {
+        final StringBuilder builder = new StringBuilder();
+        for(int piece = 0, pieces = 1 + random.nextInt(4); piece < pieces; piece++) {
+            final int kind = random.nextInt(10);
+            if(kind < 2 && depth < 2) {
+                builder.append('(').append(randomFilter(random, depth + 1)).append(')');
+            }
+            else if(kind == 2 && depth < 2) {
+                builder.append('(').append(randomFilter(random, depth + 1)).append('|').append(randomFilter(random, depth + 1)).append(')');
+            }
+            else if(kind == 3 && depth == 0) {
+                // Anchors and quotes are never repeated, even inside a group, since the LINEAR engine leaves repeating them to Java.
+                builder.append(ANCHORS[random.nextInt(ANCHORS.length)]);
+                continue;
+            }
+            else {
+                builder.append(ATOMS[random.nextInt(ATOMS.length)]);
+            }
+
+            if(random.nextBoolean()) {
+                builder.append(QUANTIFIERS[random.nextInt(QUANTIFIERS.length)]);
+            }
+        }
+
+        if(random.nextInt(5) == 0) {
+            builder.append('|').append(randomFilter(random, depth + 1));
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Creates a random command of up to 8 characters.
+     * @param random Random to create the command with.
+     * @return Random command.
+     */
+    private static String randomCommand(@NotNull final Random random) {
+        final StringBuilder builder = new StringBuilder();
+        for(int index = 0, length = random.nextInt(9); index < length; index++) {
+            builder.append(COMMAND_CHARACTERS.charAt(random.nextInt(COMMAND_CHARACTERS.length())));
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Creates a blacklist rule with a single regex filter.
+     * @param id Id of the rule.
+     * @param filter Regex filter of the rule.
+     * @param settings Global settings of the rule.
+     * @return Created rule.
+     */
+    private static Rule createRule(final int id, @NotNull final String filter, @NotNull final GlobalSettings settings) {
+        final ConfigurationSection config = new MemoryConfiguration().createSection("rule" + id);
+        config.set("type", "BLACKLIST");
+        config.set("regex", Collections.singletonList(filter));
+        return new Rule(config, id, settings);
+    }
+
+    /**
+     * Escapes line breaks and tabs in a command, so failures are readable.
+     * @param command Command to escape.
+     * @return Escaped command.
+     */
+    private static String escape(@NotNull final String command) {
+        return command.replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * This file is part of CommandBlockerPro, licensed under the MIT License.
+ *
+ *  Copyright (c) JadedMC
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package net.jadedmc.commandblockerpro.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the single-pass legacy color code translator gives the same output as the original String.replace chain,
+ * including its quirks, over randomly generated messages.
+ */
+public class ChatUtilsTest {
+    private static final int MESSAGES_PER_SEED = 200_000;
+    private static final String ALPHABET = "&&&§§#\\nn0123456789abcdefABCDEFklmnorx<> gzK";
+    private static final String HEX_DIGITS = "0123456789abcdefABCDEFg";
+
+    /**
+     * Compares both translators over random messages, biased toward '&', '§', '#', "\n", and hex digits.
+     * Each seed gives a different, but repeatable, set of messages.
+     * @param seed Seed of the random messages.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4})
+    public void replaceLegacyMatchesOriginal(final long seed) {
+        final Random random = new Random(seed);
+        for(int count = 0; count < MESSAGES_PER_SEED; count++) {
+            final String message = randomMessage(random);
+            assertEquals(originalReplaceLegacy(message), ChatUtils.replaceLegacy(message), () -> "Message: " + message);
+        }
+    }
+
+    /**
+     * Compares both translators on messages that hit each quirk of the original translator.
+     */
+    @Test
+    public void replaceLegacyKeepsQuirks() {
+        final String[] messages = {
+                "",
+                "&cHello &lWorld",
+                "&#ff00AA text",
+                "§#ff00aa text",
+                "&#ff00a",
+                "&&#123456",
+                "&C &x §x",
+                "§ alone &",
+                "line\\nline\\\\n",
+                "&#12345g&#abcdef&r",
+        };
+
+        for(final String message : messages) {
+            assertEquals(originalReplaceLegacy(message), ChatUtils.replaceLegacy(message), () -> "Message: " + message);
+        }
+    }
+
+    /**
+     * Creates a random message of up to 24 pieces, where some pieces start a possibly invalid hex color.
+     * @param random Random to create the message with.
+     * @return Random message.
+     */
+    private static String randomMessage(@NotNull final Random random) {
+        final int length = random.nextInt(24);
+        final StringBuilder builder = new StringBuilder();
+        for(int piece = 0; piece < length; piece++) {
+            if(random.nextInt(8) == 0) {
+                builder.append("&#");
+                for(int digit = 0, digits = random.nextInt(8); digit < digits; digit++) {
+                    builder.append(HEX_DIGITS.charAt(random.nextInt(HEX_DIGITS.length())));
+                }
+            }
+            else {
+                builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * The original legacy color code translator, kept to check the current one against.
+     * @param message Message to replace color codes in.
+     * @return Message with the color codes replaced.
+     */
+    private static String originalReplaceLegacy(@NotNull String message) {
+        Pattern pattern = Pattern.compile("&#[a-fA-F0-9]{6}");
+        Matcher matcher = pattern.matcher(message);
+
+        while (matcher.find()) {
+            String color = message.substring(matcher.start() + 1, matcher.end());
+            message = message.replace("&" + color, "<reset><color:" + color + ">");
+            matcher = pattern.matcher(message);
+        }
+
+        // Then replace legacy color codes.
+        return message
+                .replace("\\n", "<newline>")
+                .replace("§", "&")
+                .replace("&0", "<reset><black>")
+                .replace("&1", "<reset><dark_blue>")
+                .replace("&2", "<reset><dark_green>")
+                .replace("&3", "<reset><dark_aqua>")
+                .replace("&4", "<reset><dark_red>")
+                .replace("&5", "<reset><dark_purple>")
+                .replace("&6", "<reset><gold>")
+                .replace("&7", "<reset><gray>")
+                .replace("&8", "<reset><dark_gray>")
+                .replace("&9", "<reset><blue>")
+                .replace("&a", "<reset><green>")
+                .replace("&b", "<reset><aqua>")
+                .replace("&c", "<reset><red>")
+                .replace("&d", "<reset><light_purple>")
+                .replace("&e", "<reset><yellow>")
+                .replace("&f", "<reset><white>")
+                .replace("&k", "<obfuscated>")
+                .replace("&l", "<bold>")
+                .replace("&m", "<strikethrough>")
+                .replace("&n", "<u>")
+                .replace("&o", "<i>")
+                .replace("&r", "<reset>");
+    }
+}